@@ -0,0 +1,435 @@
+package com.ethanzarov.words;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read-only anagram index in a file written by AnagramIndexBuilder, as a
+ * replacement for PrefixTrie's permutation search. Words are grouped under
+ * their signature (letters sorted, e.g. AELPP for APPLE), so the anagrams of
+ * a rack are a single hash lookup instead of n! permutations. The file is
+ * memory-mapped and queried in place with absolute reads, so it costs no heap
+ * and is safe to query from any thread.
+ *
+ * File layout (big-endian):
+ *   0  int magic "EZAN"
+ *   4  int format version
+ *   8  int word count
+ *   12 int signature count
+ *   16 int shortest word length
+ *   20 int longest word length
+ *   24 int hash table offset
+ *   28 int hash table size (a power of two)
+ * then one section entry per length, shortest first, of
+ * [signature offset][signature count][word offset][word count] ints,
+ * then per length the signature records of [letters][first word offset int][word count int],
+ * then per length the word records of [letters][difficulty byte], grouped by signature,
+ * then the hash table: open addressing with linear probing over signature record offsets (0 = empty).
+ */
+public final class AnagramIndex {
+    static final int MAGIC = 0x455A414E; // "EZAN"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int SECTION_ENTRY_SIZE = 16;
+    // Bytes after the letters of a signature record
+    static final int SIGNATURE_EXTRA = 8;
+
+    private final ByteBuffer buffer;
+    private final int wordCount;
+    private final int signatureCount;
+    private final int minLength;
+    private final int maxLength;
+    private final int hashOffset;
+    private final int hashMask;
+
+    AnagramIndex(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer.order(ByteOrder.BIG_ENDIAN);
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an anagram index file");
+        }
+        if (buffer.getInt(4) > FORMAT_VERSION) {
+            throw new IOException("Unsupported anagram index version " + buffer.getInt(4));
+        }
+        wordCount = buffer.getInt(8);
+        signatureCount = buffer.getInt(12);
+        minLength = buffer.getInt(16);
+        maxLength = buffer.getInt(20);
+        hashOffset = buffer.getInt(24);
+        int hashSize = buffer.getInt(28);
+        hashMask = hashSize - 1;
+        if (minLength < 1 || maxLength < minLength || Integer.bitCount(hashSize) != 1
+                || (long) hashOffset + hashSize * 4L > buffer.capacity()) {
+            throw new IOException("Truncated anagram index file");
+        }
+    }
+
+    /**
+     * Map an anagram index file
+     */
+    public static AnagramIndex open(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            return new AnagramIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            // The mapping stays valid after the file is closed
+            raf.close();
+        }
+    }
+
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    public int getSignatureCount() {
+        return signatureCount;
+    }
+
+    /**
+     * Number of words with this many letters
+     */
+    public int getWordCount(int length) {
+        if (length < minLength || length > maxLength) {
+            return 0;
+        }
+        return buffer.getInt(sectionEntry(length) + 12);
+    }
+
+    /**
+     * Whether all of these letters, rearranged, spell a word
+     */
+    public boolean hasAnagram(CharSequence letters) {
+        return findSignature(signatureOf(letters)) != 0;
+    }
+
+    /**
+     * Add every word spelled by all of these letters to output, alphabetically. Returns the number added.
+     */
+    public int findAnagrams(CharSequence letters, List<String> output) {
+        int record = findSignature(signatureOf(letters));
+        if (record == 0) {
+            return 0;
+        }
+        return addWords(record, letters.length(), output);
+    }
+
+    /**
+     * Anagram of these letters with the lowest difficulty that fits a template ('?' for any letter),
+     * like WordDictionary.CheckForWordsMatchingAlphabeticalString. Null if none fits.
+     */
+    public String findAnagramForTemplate(CharSequence letters, CharSequence template) {
+        int length = letters.length();
+        int record = template.length() == length ? findSignature(signatureOf(letters)) : 0;
+        if (record == 0) {
+            return null;
+        }
+
+        int wordOffset = buffer.getInt(record + length);
+        int count = buffer.getInt(record + length + 4);
+        int best = -1;
+        int bestDifficulty = Integer.MAX_VALUE;
+        for (int w = 0; w < count; w++) {
+            int word = wordOffset + w * (length + 1);
+            if (fitsTemplate(word, template)) {
+                int difficulty = buffer.get(word + length);
+                if (difficulty < bestDifficulty) {
+                    best = word;
+                    bestDifficulty = difficulty;
+                }
+            }
+        }
+        return best < 0 ? null : readLetters(best, length);
+    }
+
+    /**
+     * Add every word of at least minLength letters that can be spelled from some of these letters
+     * to output, shortest first, then by signature. Returns the number added.
+     */
+    public int findSubAnagrams(CharSequence letters, int minLength, List<String> output) {
+        int[] records = findSubSignatures(letters, minLength);
+        int added = 0;
+        for (int record : records) {
+            added += addWords(record, lengthOfRecord(record), output);
+        }
+        return added;
+    }
+
+    /**
+     * Number of words of at least minLength letters that can be spelled from some of these letters
+     */
+    public int countSubAnagrams(CharSequence letters, int minLength) {
+        int count = 0;
+        for (int record : findSubSignatures(letters, minLength)) {
+            count += buffer.getInt(record + lengthOfRecord(record) + 4);
+        }
+        return count;
+    }
+
+    /**
+     * DIFFICULTY_* of a word (see WordGraph), or -1 if it is not a word
+     */
+    public int getDifficulty(CharSequence word) {
+        int length = word.length();
+        int record = findSignature(signatureOf(word));
+        if (record == 0) {
+            return -1;
+        }
+        int wordOffset = buffer.getInt(record + length);
+        int count = buffer.getInt(record + length + 4);
+        for (int w = 0; w < count; w++) {
+            int offset = wordOffset + w * (length + 1);
+            if (matches(offset, word)) {
+                return buffer.get(offset + length);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Signature records of the sub-racks of letters. Racks with few distinct sub-racks
+     * look each one up; racks with more sub-racks than there are signatures of those
+     * lengths scan the signature sections instead.
+     */
+    private int[] findSubSignatures(CharSequence letters, int minLength) {
+        int[] counts = letterCounts(letters);
+        if (counts == null) {
+            return new int[0];
+        }
+        minLength = Math.max(minLength, this.minLength);
+        int maxLength = Math.min(letters.length(), this.maxLength);
+        if (minLength > maxLength) {
+            return new int[0];
+        }
+
+        long candidates = 0;
+        for (int length = minLength; length <= maxLength; length++) {
+            candidates += buffer.getInt(sectionEntry(length) + 4);
+        }
+        long subRacks = 1;
+        for (int count : counts) {
+            subRacks *= count + 1;
+            if (subRacks > candidates) {
+                break;
+            }
+        }
+
+        RecordList found = new RecordList();
+        if (subRacks <= candidates) {
+            enumerate(counts, 0, new byte[maxLength], 0, minLength, found);
+        } else {
+            scan(counts, minLength, maxLength, found);
+        }
+        int[] records = found.toArray();
+        // Record offsets follow length, then signature order
+        Arrays.sort(records);
+        return records;
+    }
+
+    private void enumerate(int[] counts, int letter, byte[] signature, int length, int minLength, RecordList found) {
+        if (letter == 26) {
+            if (length >= minLength) {
+                int record = findSignature(signature, length);
+                if (record != 0) {
+                    found.add(record);
+                }
+            }
+            return;
+        }
+        for (int used = 0; used <= counts[letter]; used++) {
+            if (used > 0) {
+                if (length == signature.length) {
+                    break;
+                }
+                signature[length++] = (byte) ('A' + letter);
+            }
+            enumerate(counts, letter + 1, signature, length, minLength, found);
+        }
+    }
+
+    private void scan(int[] counts, int minLength, int maxLength, RecordList found) {
+        int[] used = new int[26];
+        for (int length = minLength; length <= maxLength; length++) {
+            int entry = sectionEntry(length);
+            int record = buffer.getInt(entry);
+            int count = buffer.getInt(entry + 4);
+            for (int s = 0; s < count; s++, record += length + SIGNATURE_EXTRA) {
+                Arrays.fill(used, 0);
+                boolean fits = true;
+                for (int i = 0; i < length && fits; i++) {
+                    int letter = buffer.get(record + i) - 'A';
+                    fits = ++used[letter] <= counts[letter];
+                }
+                if (fits) {
+                    found.add(record);
+                }
+            }
+        }
+    }
+
+    /**
+     * Offset of the signature record for these sorted letters, or 0 if no word has them
+     */
+    private int findSignature(byte[] signature) {
+        return signature == null ? 0 : findSignature(signature, signature.length);
+    }
+
+    private int findSignature(byte[] signature, int length) {
+        if (length < minLength || length > maxLength) {
+            return 0;
+        }
+        int entry = sectionEntry(length);
+        int sectionStart = buffer.getInt(entry);
+        int sectionEnd = sectionStart + buffer.getInt(entry + 4) * (length + SIGNATURE_EXTRA);
+
+        int slot = hash(signature, length) & hashMask;
+        while (true) {
+            int record = buffer.getInt(hashOffset + slot * 4);
+            if (record == 0) {
+                return 0;
+            }
+            if (record >= sectionStart && record < sectionEnd && matches(record, signature, length)) {
+                return record;
+            }
+            slot = (slot + 1) & hashMask;
+        }
+    }
+
+    private int addWords(int record, int length, List<String> output) {
+        int wordOffset = buffer.getInt(record + length);
+        int count = buffer.getInt(record + length + 4);
+        for (int w = 0; w < count; w++) {
+            output.add(readLetters(wordOffset + w * (length + 1), length));
+        }
+        return count;
+    }
+
+    private int lengthOfRecord(int record) {
+        for (int length = minLength; length <= maxLength; length++) {
+            int entry = sectionEntry(length);
+            int start = buffer.getInt(entry);
+            if (record >= start && record < start + buffer.getInt(entry + 4) * (length + SIGNATURE_EXTRA)) {
+                return length;
+            }
+        }
+        throw new IllegalArgumentException("Not a signature record: " + record);
+    }
+
+    private int sectionEntry(int length) {
+        return HEADER_SIZE + (length - minLength) * SECTION_ENTRY_SIZE;
+    }
+
+    private boolean matches(int offset, byte[] letters, int length) {
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(offset + i) != letters[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matches(int offset, CharSequence word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (buffer.get(offset + i) != 'A' + WordGraph.letterIndex(word.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean fitsTemplate(int offset, CharSequence template) {
+        for (int i = 0; i < template.length(); i++) {
+            char c = template.charAt(i);
+            if (c != WordGraph.WILDCARD && buffer.get(offset + i) != 'A' + WordGraph.letterIndex(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String readLetters(int offset, int length) {
+        char[] letters = new char[length];
+        for (int i = 0; i < length; i++) {
+            letters[i] = (char) buffer.get(offset + i);
+        }
+        return new String(letters);
+    }
+
+    /**
+     * Count of each letter A-Z, or null if there is anything other than a letter
+     */
+    private static int[] letterCounts(CharSequence letters) {
+        int[] counts = new int[26];
+        for (int i = 0; i < letters.length(); i++) {
+            int letter = WordGraph.letterIndex(letters.charAt(i));
+            if (letter < 0) {
+                return null;
+            }
+            counts[letter]++;
+        }
+        return counts;
+    }
+
+    /**
+     * Upper-case letters in alphabetical order, or null if there is anything other than a letter
+     */
+    static byte[] signatureOf(CharSequence letters) {
+        int[] counts = letterCounts(letters);
+        if (counts == null) {
+            return null;
+        }
+        byte[] signature = new byte[letters.length()];
+        int i = 0;
+        for (int letter = 0; letter < 26; letter++) {
+            for (int n = 0; n < counts[letter]; n++) {
+                signature[i++] = (byte) ('A' + letter);
+            }
+        }
+        return signature;
+    }
+
+    static String signatureKey(String word) {
+        return new String(signatureOf(word), StandardCharsets.US_ASCII);
+    }
+
+    static int hash(String signature) {
+        byte[] bytes = signature.getBytes(StandardCharsets.US_ASCII);
+        return hash(bytes, bytes.length);
+    }
+
+    /**
+     * FNV-1a, mixed so linear probing sees well spread low bits
+     */
+    static int hash(byte[] signature, int length) {
+        int h = 0x811C9DC5;
+        for (int i = 0; i < length; i++) {
+            h = (h ^ signature[i]) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Growable int array for record offsets
+     */
+    private static final class RecordList {
+        private int[] items = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(items, size);
+        }
+    }
+}
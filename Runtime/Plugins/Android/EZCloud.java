@@ -1,9 +1,11 @@
 package com.ethanzarov.cloud;
 
-import android.app.Activity;
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
+import com.ethanzarov.metrics.EZMetrics;
 import com.unity3d.player.UnityPlayer;
 
 import com.google.android.gms.auth.api.signin.GoogleSignIn;
@@ -13,7 +15,9 @@ import com.google.android.gms.auth.api.signin.GoogleSignInOptions;
 import com.google.android.gms.games.Games;
 import com.google.android.gms.games.SnapshotsClient;
 import com.google.android.gms.games.snapshot.Snapshot;
+import com.google.android.gms.games.snapshot.SnapshotContents;
 import com.google.android.gms.games.snapshot.SnapshotMetadata;
+import com.google.android.gms.games.snapshot.SnapshotMetadataBuffer;
 import com.google.android.gms.games.snapshot.SnapshotMetadataChange;
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.OnSuccessListener;
@@ -22,69 +26,322 @@ import com.google.android.gms.tasks.OnFailureListener;
 import org.json.JSONObject;
 import org.json.JSONException;
 
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class EZCloud {
     private static final String TAG = "default";
     private static final String CLOUD_SAVE_PREFIX = "EZCloud";
     private static final int MAX_SNAPSHOT_RESOLVE_RETRIES = 3;
+    private static final String DIRTY_KEYS_PREF = "__ezcloud.dirtyKeys";
+    private static final String DIRTY_TIMES_PREF = "__ezcloud.dirtyTimes";
+    private static final String MIGRATED_TO_LOG_PREF = "__ezcloud.migratedToLog";
+    private static final String FINGERPRINT_PREF_PREFIX = "__ezcloud.fingerprint.";
+    private static final String SHARD_GEN_KEY = "__ezcloud.shardGen";
+    private static final String MANIFEST_SHARDS_KEY = "shards";
+    private static final String MANIFEST_GEN_PREFIX = "gen.";
     
-    private String gameIdentifier = "";
-    private String cloudSaveName = "";
+    // Local storage backends
+    public static final int STORAGE_SHARED_PREFERENCES = 0;
+    public static final int STORAGE_LOG = 1;
+    
+    // Threads that snapshot I/O, encoding and cloud callbacks run on
+    public static final int THREAD_MODE_BACKGROUND = 0;
+    public static final int THREAD_MODE_MAIN = 1;
+    
+    // Game identifier and the names derived from it, replaced as a whole
+    private volatile GameKeys gameKeys;
     
     public Context ctx;
     
-    private SharedPreferences prefs;
-    private SharedPreferences.Editor prefsEditor;
+    private int storageBackend = STORAGE_SHARED_PREFERENCES;
+    private volatile LocalStore store;
+    // Set when the local log could not be opened after migrating and the older
+    // SharedPreferences copy is served instead; the cloud then wins every key
+    private boolean localDataStale = false;
+    // Local store writes not applied yet, keyed by stored key (REMOVED for removals).
+    // Staged under stateLock; a flush takes the whole map and writes it with its own
+    // editor outside the lock.
+    private HashMap<String, Object> stagedWrites = new HashMap<>();
+    // One flush writes to the store at a time, so a newer value is never overwritten
+    // by an older one. A flush asked for meanwhile is done by the running flusher.
+    private final AtomicBoolean flushing = new AtomicBoolean(false);
+    private volatile boolean flushRequested = false;
+    private static final Object REMOVED = new Object();
+    
+    // Set once the local store is loaded; until then local reads and writes wait for it
+    private final CountDownLatch localStoreReady = new CountDownLatch(1);
+    private volatile boolean initStarted = false;
+    private volatile boolean ready = false;
+    // With async init, the first cloud load only notifies Unity if it changed data
+    private volatile boolean quietRevalidation = false;
+    
+    // In-memory mirror of this game's entries, keyed without the game prefix and kept
+    // sorted for prefix and range queries. Reads are lock-free; writes and the
+    // bookkeeping below happen under stateLock, which cloud work only holds for the
+    // keys it changes.
+    private final ConcurrentSkipListMap<String, Object> localCache = new ConcurrentSkipListMap<>();
+    private final Object stateLock = new Object();
+    // Primitive mirror of keys registered for handle access, updated with localCache
+    private final KeySlots keySlots = new KeySlots();
+    
+    // Write batching: saves inside a batch are applied to the store together
+    private int batchDepth = 0;
+    // Written under stateLock, volatile for the metrics gauge
+    private volatile int pendingWrites = 0;
+    private volatile long flushCount = 0;
+    private volatile long flushesAvoided = 0;
+    
+    // Dirty-key tracking: keys changed since the last successful cloud commit
+    private final HashSet<String> dirtyKeys = new HashSet<>();
+    private final HashMap<String, Long> keyVersions = new HashMap<>();
+    // Cloud data is only applied to keys whose version has not moved since the download began
+    private volatile long versionCounter = 0;
+    private boolean dirtyKeysChanged = false;
+    // Size of dirtyKeys, for the metrics gauge
+    private volatile int dirtyKeyCount = 0;
+    
+    // Last-modified time of each key, written into snapshots for per-key conflict merging.
+    // Written under stateLock; concurrent so cloud loads can compare against it without the lock.
+    private final ConcurrentHashMap<String, Long> keyTimestamps = new ConcurrentHashMap<>();
+    private final SnapshotMerger merger = new SnapshotMerger();
+    
+    // Fingerprint ("progress value:last modified") of each snapshot as this device last
+    // uploaded or applied it, by snapshot name. A load is skipped while the remote metadata
+    // still matches.
+    private final ConcurrentHashMap<String, String> snapshotFingerprints = new ConcurrentHashMap<>();
+    
+    // Encoded snapshot entries of the last upload, re-encoded only for dirty keys
+    private final HashMap<String, byte[]> encodedEntries = new HashMap<>();
+    private boolean encodedEntriesValid = false;
+    
+    // Snapshot sharding: keys are spread over shardCount snapshots plus a manifest
+    // recording the shard count and the generation of each shard's last upload
+    private int shardCount = 1;
+    private final ArrayList<String> shardPrefixes = new ArrayList<>();
+    private final ArrayList<Integer> shardPrefixTargets = new ArrayList<>();
+    private final Random shardGenerations = new Random();
+    
+    // Snapshot encoding options and stats of the last encode/decode
+    private volatile boolean compressSnapshots = true;
+    private volatile long lastEncodeNanos = 0;
+    private volatile long lastDecodeNanos = 0;
+    private volatile int lastEncodedSize = 0;
+    private volatile int lastDecodedSize = 0;
     
     private GoogleSignInClient googleSignInClient;
-    private GoogleSignInAccount signedInAccount;
-    private SnapshotsClient snapshotsClient;
-    private Snapshot currentSnapshot;
-    private String currentSnapshotContent;
-    private boolean isCloudInitialized = false;
+    // Set once signed in; null until then
+    private volatile CloudSession session;
+    
+    // Single worker thread so encode, decode, apply and commit run in order
+    private final ScheduledThreadPoolExecutor cloudExecutor = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "EZCloud-io");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Executor listenerExecutor = cloudExecutor;
+    
+    // Single-flight, debounced uploads with backoff after failures
+    private final SyncScheduler syncScheduler = new SyncScheduler(cloudExecutor, this::performSync);
+    // True while a load started by the scheduler has not reported back
+    private final AtomicBoolean loadFinished = new AtomicBoolean(false);
+    
+    private static volatile UnityTarget unityLoadTarget = UnityTarget.NONE;
+    private static volatile UnityTarget unityReadyTarget = UnityTarget.NONE;
+    private static volatile EZCloudEvents cloudEvents;
+    
+    /**
+     * Identifier-derived names. Stored keys are cached per instance, so a cache never
+     * mixes prefixes of two identifiers.
+     */
+    private static final class GameKeys {
+        final String gameIdentifier;
+        final String cloudSaveName;
+        final String keyPrefix;
+        private final ConcurrentHashMap<String, String> storedKeys = new ConcurrentHashMap<>();
+        
+        GameKeys(String identifier) {
+            gameIdentifier = identifier;
+            cloudSaveName = CLOUD_SAVE_PREFIX + identifier;
+            keyPrefix = identifier + ".";
+        }
+        
+        String storedKey(String key) {
+            String storedKey = storedKeys.get(key);
+            if (storedKey == null) {
+                storedKey = keyPrefix + key;
+                storedKeys.put(key, storedKey);
+            }
+            return storedKey;
+        }
+    }
+    
+    /**
+     * Signed-in Play Games account and its snapshots client, published together
+     */
+    private static final class CloudSession {
+        final GoogleSignInAccount account;
+        final SnapshotsClient snapshots;
+        
+        CloudSession(GoogleSignInAccount account, SnapshotsClient snapshots) {
+            this.account = account;
+            this.snapshots = snapshots;
+        }
+    }
     
-    private static String unityCallbackObject = "";
-    private static String unityCallbackMethod = "";
+    /**
+     * Unity GameObject and method for UnitySendMessage, published together
+     */
+    private static final class UnityTarget {
+        static final UnityTarget NONE = new UnityTarget("", "");
+        
+        final String objectName;
+        final String methodName;
+        
+        UnityTarget(String objectName, String methodName) {
+            this.objectName = objectName != null ? objectName : "";
+            this.methodName = methodName != null ? methodName : "";
+        }
+        
+        boolean isSet() {
+            return !objectName.isEmpty() && !methodName.isEmpty();
+        }
+    }
     
 
     public static void setUnityLoadFromCloudCallback(String gameObjectName, String methodName) {
-        unityCallbackObject = gameObjectName;
-        unityCallbackMethod = methodName;
+        unityLoadTarget = new UnityTarget(gameObjectName, methodName);
         Log.d(TAG, "Set Unity callback to: " + gameObjectName + "." + methodName);
     }
+    
+    /**
+     * Unity method to call when local data is loaded after initializeAsync()
+     */
+    public static void setUnityReadyCallback(String gameObjectName, String methodName) {
+        unityReadyTarget = new UnityTarget(gameObjectName, methodName);
+        Log.d(TAG, "Set Unity ready callback to: " + gameObjectName + "." + methodName);
+    }
+    
+    /**
+     * Switch Unity notifications to a polled event ring buffer (see EZCloudEvents for the layout)
+     * and return it. While enabled, load results are no longer sent through UnitySendMessage.
+     */
+    public static ByteBuffer enableEventBuffer(int capacity) {
+        if (cloudEvents == null) {
+            cloudEvents = new EZCloudEvents(capacity);
+            Log.d(TAG, "Enabled cloud event buffer");
+        }
+        return cloudEvents.getBuffer();
+    }
+    
+    /**
+     * Go back to UnitySendMessage callbacks
+     */
+    public static void disableEventBuffer() {
+        cloudEvents = null;
+    }
+    
+    private static void postEvent(int type, int code, long value) {
+        EZCloudEvents events = cloudEvents;
+        if (events != null) {
+            events.publish(type, code, value);
+        }
+    }
 
 
     public void setGameIdentifier(String identifier) {
-        this.gameIdentifier = identifier;
-        this.cloudSaveName = CLOUD_SAVE_PREFIX + identifier;
-        Log.d(TAG, "Game identifier set to: " + identifier + ", cloud save name: " + cloudSaveName);
+        GameKeys keys = new GameKeys(identifier);
+        synchronized (stateLock) {
+            gameKeys = keys;
+            if (store != null) {
+                rebuildLocalCache();
+            }
+        }
+        Log.d(TAG, "Game identifier set to: " + identifier + ", cloud save name: " + keys.cloudSaveName);
     }
     
+    /**
+     * Current identifier-derived names, falling back to the package name if no game ID was set
+     */
+    private GameKeys getGameKeys() {
+        GameKeys keys = gameKeys;
+        if (keys == null || keys.gameIdentifier == null || keys.gameIdentifier.isEmpty()) {
+            keys = new GameKeys(ctx != null ? ctx.getPackageName() : "unknown");
+            gameKeys = keys;
+        }
+        return keys;
+    }
 
     private String getGameSpecificKey(String key) {
-        if (gameIdentifier == null || gameIdentifier.isEmpty()) {
-            // If no game ID set, use package name as fallback
-            if (ctx != null) {
-                gameIdentifier = ctx.getPackageName();
-            } else {
-                gameIdentifier = "unknown";
+        return getGameKeys().storedKey(key);
+    }
+    
+    /**
+     * Rebuild the in-memory mirror and dirty-key set from the local store (one loadAll() pass).
+     * Per-key state of the previous identifier is dropped, so none of it reaches the new save.
+     */
+    private void rebuildLocalCache() {
+        String keyPrefix;
+        synchronized (stateLock) {
+            keyPrefix = getGameKeys().keyPrefix;
+            Map<String, Object> stored = store.loadAll();
+            localCache.clear();
+            keyVersions.clear();
+            keyTimestamps.clear();
+            encodedEntries.clear();
+            encodedEntriesValid = false;
+            for (Map.Entry<String, Object> entry : stored.entrySet()) {
+                String storedKey = entry.getKey();
+                if (storedKey.startsWith(keyPrefix)) {
+                    localCache.put(storedKey.substring(keyPrefix.length()), entry.getValue());
+                }
+            }
+            keySlots.reload(localCache);
+            loadDirtyKeys(stored);
+            loadFingerprints(stored);
+            if (localDataStale) {
+                // Nothing local is newer than the cloud: no key is uploaded, and the next
+                // cloud load replaces every value
+                dirtyKeys.clear();
+                onDirtyKeysChanged();
+                keyTimestamps.clear();
+                snapshotFingerprints.clear();
             }
+            dirtyKeyCount = dirtyKeys.size();
         }
-        return gameIdentifier + "." + key;
+        Log.d(TAG, "Loaded " + localCache.size() + " local entries for " + keyPrefix);
     }
     
 
     public void initialize() {
-        // Initialize local SharedPreferences storage
-        prefs = ctx.getSharedPreferences("localData_" + gameIdentifier, Context.MODE_PRIVATE);
-        prefsEditor = prefs.edit();
+        initStarted = true;
+        long startTime = System.nanoTime();
         
-        // Set default game identifier if not already set
-        if (gameIdentifier == null || gameIdentifier.isEmpty()) {
-            setGameIdentifier(ctx.getPackageName());
+        // Initialize local storage
+        synchronized (stateLock) {
+            store = openLocalStore();
+            registerGauges();
+            rebuildLocalCache();
         }
+        markReady(startTime);
         
         try {
             GoogleSignInOptions signInOptions = new GoogleSignInOptions.Builder(GoogleSignInOptions.DEFAULT_GAMES_SIGN_IN)
@@ -92,19 +349,18 @@ public class EZCloud {
             
             googleSignInClient = GoogleSignIn.getClient(ctx, signInOptions);
             
-            signedInAccount = GoogleSignIn.getLastSignedInAccount(ctx);
-            if (signedInAccount != null) {
-                onConnected(signedInAccount);
+            GoogleSignInAccount lastAccount = GoogleSignIn.getLastSignedInAccount(ctx);
+            if (lastAccount != null) {
+                onConnected(lastAccount);
             } else {
-                googleSignInClient.silentSignIn().addOnSuccessListener((Activity) ctx, 
+                googleSignInClient.silentSignIn().addOnSuccessListener(listenerExecutor, 
                     new OnSuccessListener<GoogleSignInAccount>() {
                         @Override
                         public void onSuccess(GoogleSignInAccount account) {
-                            signedInAccount = account;
                             onConnected(account);
                         }
                     }
-                ).addOnFailureListener((Activity) ctx,
+                ).addOnFailureListener(listenerExecutor,
                     new OnFailureListener() {
                         @Override
                         public void onFailure(Exception e) {
@@ -118,228 +374,1450 @@ public class EZCloud {
         }
     }
     
+    /**
+     * Non-blocking initialize(). The local store (the last applied cloud data plus any
+     * local changes) is opened and loaded on the worker thread, and Unity is told when
+     * it is ready through setUnityReadyCallback, the event buffer, or isReady(). Local
+     * reads and writes made before then wait for the load. After sign-in the cloud
+     * snapshot is revalidated in the background and Unity's load callback only fires
+     * if that changed local data.
+     */
+    public void initializeAsync() {
+        initStarted = true;
+        quietRevalidation = true;
+        cloudExecutor.execute(() -> {
+            try {
+                initialize();
+            } catch (Exception e) {
+                Log.e(TAG, "Error initializing cloud save: " + e.getMessage());
+                // Do not leave callers waiting on a store that will never load
+                localStoreReady.countDown();
+            }
+        });
+    }
+    
+    /**
+     * Whether local data has been loaded and can be read without waiting
+     */
+    public boolean isReady() {
+        return ready;
+    }
+    
+    private void markReady(long startTime) {
+        if (ready) {
+            return;
+        }
+        ready = true;
+        localStoreReady.countDown();
+        long elapsedMs = (System.nanoTime() - startTime) / 1000000;
+        Log.d(TAG, "Local data ready in " + elapsedMs + "ms (" + localCache.size() + " entries)");
+        
+        postEvent(EZCloudEvents.EVENT_READY, 0, localCache.size());
+        UnityTarget target = unityReadyTarget;
+        if (target.isSet()) {
+            try {
+                JSONObject result = new JSONObject();
+                result.put("ready", true);
+                result.put("entries", localCache.size());
+                result.put("elapsedMs", elapsedMs);
+                UnityPlayer.UnitySendMessage(target.objectName, target.methodName, result.toString());
+            } catch (Exception e) {
+                Log.e(TAG, "Error sending Unity ready callback: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Wait for an async initialize to finish loading the local store
+     */
+    private void awaitLocalStore() {
+        if (ready || !initStarted) {
+            return;
+        }
+        try {
+            localStoreReady.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Report queue and dirty-state sizes to EZMetrics when it is polled
+     */
+    private void registerGauges() {
+        // Cancelled debounce timers should not count as queued work
+        cloudExecutor.setRemoveOnCancelPolicy(true);
+        EZMetrics.setGaugeSource(EZMetrics.GAUGE_CLOUD_QUEUE_DEPTH, () -> cloudExecutor.getQueue().size());
+        // Read without stateLock so polling never waits on saves or cloud work
+        EZMetrics.setGaugeSource(EZMetrics.GAUGE_DIRTY_KEYS, () -> dirtyKeyCount);
+        EZMetrics.setGaugeSource(EZMetrics.GAUGE_PENDING_WRITES, () -> pendingWrites);
+    }
+    
+    /**
+     * Choose the local storage backend: STORAGE_SHARED_PREFERENCES (default) or STORAGE_LOG,
+     * an append-only memory-mapped log. Must be called before initialize(). The first time
+     * the log backend is used, existing SharedPreferences data is copied into it.
+     */
+    public void setStorageBackend(int backend) {
+        if (store != null) {
+            Log.w(TAG, "Storage backend must be set before initialize()");
+            return;
+        }
+        storageBackend = backend;
+    }
+    
+    /**
+     * Open the selected storage backend, falling back to SharedPreferences if the log cannot be opened
+     */
+    private LocalStore openLocalStore() {
+        // Named after the identifier as set (empty if none), as before the package name fallback
+        GameKeys keys = gameKeys;
+        String gameIdentifier = keys != null ? keys.gameIdentifier : "";
+        SharedPreferences prefs = ctx.getSharedPreferences("localData_" + gameIdentifier, Context.MODE_PRIVATE);
+        if (storageBackend == STORAGE_LOG) {
+            File logFile = new File(ctx.getFilesDir(), "localData_" + gameIdentifier + ".log");
+            // The flag, not the log file, decides: a log created by a migration that was
+            // interrupted exists but does not hold the data yet
+            boolean migrated = prefs.getBoolean(MIGRATED_TO_LOG_PREF, false);
+            try {
+                LogStore logStore = new LogStore(logFile, cloudExecutor);
+                if (!migrated) {
+                    try {
+                        migrateToLog(prefs, logStore);
+                    } catch (IOException e) {
+                        // Replaced by the prefs store below; release the log's file and mapping
+                        logStore.close();
+                        throw e;
+                    }
+                }
+                return logStore;
+            } catch (IOException e) {
+                if (migrated) {
+                    // Saves since the migration are only in the log; the prefs copy is older
+                    Log.e(TAG, "Error opening local log, falling back to stale SharedPreferences data: "
+                            + e.getMessage());
+                    localDataStale = true;
+                } else {
+                    Log.e(TAG, "Error opening local log, using SharedPreferences: " + e.getMessage());
+                }
+            }
+        }
+        return new PrefsStore(prefs);
+    }
+    
+    /**
+     * One-time copy of SharedPreferences data into a new log store. The prefs file is
+     * left in place and only marked as migrated once the copy is on disk, so a migration
+     * cut short is simply run again.
+     */
+    private void migrateToLog(SharedPreferences prefs, LogStore logStore) throws IOException {
+        GameKeys keys = gameKeys;
+        Map<String, ?> existing = prefs.getAll();
+        LocalStore.Editor editor = logStore.edit();
+        for (Map.Entry<String, ?> entry : existing.entrySet()) {
+            if (!entry.getKey().equals(MIGRATED_TO_LOG_PREF)) {
+                editor.put(entry.getKey(), entry.getValue());
+            }
+        }
+        editor.apply();
+        logStore.sync();
+        if (!prefs.edit().putBoolean(MIGRATED_TO_LOG_PREF, true).commit()) {
+            throw new IOException("Could not record the migration to the local log");
+        }
+        Log.d(TAG, "Migrated " + existing.size() + " entries from SharedPreferences to "
+                + (keys != null ? keys.gameIdentifier : "") + " log");
+    }
+    
     /**
      * Called when connected to Google Play Games
      */
     private void onConnected(GoogleSignInAccount account) {
-        snapshotsClient = Games.getSnapshotsClient(ctx, account);
-        isCloudInitialized = true;
+        session = new CloudSession(account, Games.getSnapshotsClient(ctx, account));
         Log.d(TAG, "Connected to Google Play Games Services");
         
         // Load snapshot data
-        loadFromCloud();
+        if (quietRevalidation) {
+            // Local data is already being served, only report a load that changes it
+            requestLoad(true);
+        } else {
+            loadFromCloud();
+        }
+    }
+    
+    /**
+     * Choose where snapshot I/O and cloud listeners run: THREAD_MODE_BACKGROUND (default)
+     * uses EZCloud's worker thread, THREAD_MODE_MAIN uses the Android main thread.
+     * Unity callbacks are always delivered through UnitySendMessage.
+     */
+    public void setCloudThreadMode(int mode) {
+        if (mode == THREAD_MODE_MAIN) {
+            final Handler mainHandler = new Handler(Looper.getMainLooper());
+            listenerExecutor = command -> mainHandler.post(command);
+        } else {
+            listenerExecutor = cloudExecutor;
+        }
     }
     
     /**
      * Check if cloud save is available
      */
     public boolean isCloudAvailable() {
-        return isCloudInitialized && signedInAccount != null;
+        return session != null;
+    }
+    
+    /**
+     * Snapshots client of the signed-in session
+     */
+    private SnapshotsClient snapshots() {
+        CloudSession current = session;
+        if (current == null) {
+            throw new IllegalStateException("Not signed in to Play Games");
+        }
+        return current.snapshots;
     }
     
     /**
      * Save string to local storage
      */
     public void saveString(String key, String valueToSave) {
-        prefsEditor.putString(getGameSpecificKey(key), valueToSave);
-        prefsEditor.apply();
+        awaitLocalStore();
+        boolean flush;
+        synchronized (stateLock) {
+            if (valueToSave != null) {
+                stagedWrites.put(getGameSpecificKey(key), valueToSave);
+                cachePut(key, valueToSave);
+            } else {
+                // Saving null removes the key, as SharedPreferences.putString(null) does
+                stagedWrites.put(getGameSpecificKey(key), REMOVED);
+                cacheRemove(key);
+            }
+            markDirty(key);
+            flush = deferFlushInBatch();
+        }
+        if (flush) {
+            applyLocalWrites();
+        }
     }
     
     /**
      * Load string from local storage
      */
     public String loadString(String key) {
-        return prefs.getString(getGameSpecificKey(key), "");
+        awaitLocalStore();
+        Object value = localCache.get(key);
+        return value != null ? (String) value : "";
     }
     
     /**
      * Save boolean to local storage
      */
     public void saveBool(String key, boolean valueToSave) {
-        prefsEditor.putBoolean(getGameSpecificKey(key), valueToSave);
-        prefsEditor.apply();
+        awaitLocalStore();
+        boolean flush;
+        synchronized (stateLock) {
+            stagedWrites.put(getGameSpecificKey(key), valueToSave);
+            cachePut(key, valueToSave);
+            markDirty(key);
+            flush = deferFlushInBatch();
+        }
+        if (flush) {
+            applyLocalWrites();
+        }
     }
     
     /**
      * Load boolean from local storage
      */
     public boolean loadBool(String key) {
-        return prefs.getBoolean(getGameSpecificKey(key), false);
+        awaitLocalStore();
+        Object value = localCache.get(key);
+        return value != null ? (Boolean) value : false;
     }
     
     /**
      * Save integer to local storage
      */
     public void saveInt(String key, int valueToSave) {
-        prefsEditor.putInt(getGameSpecificKey(key), valueToSave);
-        prefsEditor.apply();
+        awaitLocalStore();
+        boolean flush;
+        synchronized (stateLock) {
+            stagedWrites.put(getGameSpecificKey(key), valueToSave);
+            cachePut(key, valueToSave);
+            markDirty(key);
+            flush = deferFlushInBatch();
+        }
+        if (flush) {
+            applyLocalWrites();
+        }
     }
     
     /**
      * Load integer from local storage
      */
     public int loadInt(String key) {
-        return prefs.getInt(getGameSpecificKey(key), 0);
+        awaitLocalStore();
+        Object value = localCache.get(key);
+        return value != null ? (Integer) value : 0;
     }
     
     /**
      * Save long to local storage
      */
     public void saveLong(String key, long valueToSave) {
-        prefsEditor.putLong(getGameSpecificKey(key), valueToSave);
-        prefsEditor.apply();
+        awaitLocalStore();
+        boolean flush;
+        synchronized (stateLock) {
+            stagedWrites.put(getGameSpecificKey(key), valueToSave);
+            cachePut(key, valueToSave);
+            markDirty(key);
+            flush = deferFlushInBatch();
+        }
+        if (flush) {
+            applyLocalWrites();
+        }
     }
     
     /**
      * Load long from local storage
      */
     public long loadLong(String key) {
-        return prefs.getLong(getGameSpecificKey(key), 0);
+        awaitLocalStore();
+        Object value = localCache.get(key);
+        return value != null ? (Long) value : 0;
     }
     
     /**
      * Save float to local storage
      */
     public void saveFloat(String key, float valueToSave) {
-        prefsEditor.putFloat(getGameSpecificKey(key), valueToSave);
-        prefsEditor.apply();
+        awaitLocalStore();
+        boolean flush;
+        synchronized (stateLock) {
+            stagedWrites.put(getGameSpecificKey(key), valueToSave);
+            cachePut(key, valueToSave);
+            markDirty(key);
+            flush = deferFlushInBatch();
+        }
+        if (flush) {
+            applyLocalWrites();
+        }
     }
     
     /**
      * Load float from local storage
      */
     public float loadFloat(String key) {
-        return prefs.getFloat(getGameSpecificKey(key), 0.0f);
+        awaitLocalStore();
+        Object value = localCache.get(key);
+        return value != null ? (Float) value : 0.0f;
     }
     
+    // Key handles: register a key once, then read and write it by int without
+    // passing or prefixing the key string on every call
+    
     /**
-     * Check if key exists in local storage
+     * Handle for a key, the same one every time the key is registered. Handles stay
+     * valid for the life of this instance, across setGameIdentifier and cloud loads.
      */
-    public boolean keyExists(String key) {
-        return prefs.contains(getGameSpecificKey(key));
+    public int registerKey(String key) {
+        awaitLocalStore();
+        synchronized (stateLock) {
+            return keySlots.register(key, localCache.get(key));
+        }
     }
     
     /**
-     * Load data as JSON string
+     * Handles for many keys in one call
      */
-    public String loadNativeDataAsJSONString(String key) {
+    public int[] registerKeys(String[] keys) {
+        int[] handles = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            handles[i] = registerKey(keys[i]);
+        }
+        return handles;
+    }
+    
+    public boolean keyExists(int handle) {
+        awaitLocalStore();
+        return keySlots.exists(handle);
+    }
+    
+    /**
+     * Numeric getters convert between numeric types; a missing key reads as 0
+     */
+    public boolean getBool(int handle) {
+        awaitLocalStore();
+        return keySlots.getBool(handle);
+    }
+    
+    public int getInt(int handle) {
+        awaitLocalStore();
+        return keySlots.getInt(handle);
+    }
+    
+    public long getLong(int handle) {
+        awaitLocalStore();
+        return keySlots.getLong(handle);
+    }
+    
+    public float getFloat(int handle) {
+        awaitLocalStore();
+        return keySlots.getFloat(handle);
+    }
+    
+    public String getString(int handle) {
+        return loadString(keySlots.keyOf(handle));
+    }
+    
+    public void setBool(int handle, boolean value) {
+        saveBool(keySlots.keyOf(handle), value);
+    }
+    
+    public void setInt(int handle, int value) {
+        saveInt(keySlots.keyOf(handle), value);
+    }
+    
+    public void setLong(int handle, long value) {
+        saveLong(keySlots.keyOf(handle), value);
+    }
+    
+    public void setFloat(int handle, float value) {
+        saveFloat(keySlots.keyOf(handle), value);
+    }
+    
+    public void setString(int handle, String value) {
+        saveString(keySlots.keyOf(handle), value);
+    }
+    
+    /**
+     * Values of many handles in one call, written to out in handle order. The caller
+     * owns out and can reuse it every frame, so reading allocates nothing.
+     */
+    public void getBools(int[] handles, boolean[] out) {
+        awaitLocalStore();
+        for (int i = 0; i < handles.length && i < out.length; i++) {
+            out[i] = keySlots.getBool(handles[i]);
+        }
+    }
+    
+    public void getInts(int[] handles, int[] out) {
+        awaitLocalStore();
+        for (int i = 0; i < handles.length && i < out.length; i++) {
+            out[i] = keySlots.getInt(handles[i]);
+        }
+    }
+    
+    public void getLongs(int[] handles, long[] out) {
+        awaitLocalStore();
+        for (int i = 0; i < handles.length && i < out.length; i++) {
+            out[i] = keySlots.getLong(handles[i]);
+        }
+    }
+    
+    public void getFloats(int[] handles, float[] out) {
+        awaitLocalStore();
+        for (int i = 0; i < handles.length && i < out.length; i++) {
+            out[i] = keySlots.getFloat(handles[i]);
+        }
+    }
+    
+    /**
+     * Save many values by handle in one call and one disk write, like saveBulk.
+     * Any array pair may be null; handles and values are matched by index.
+     */
+    public void setBulk(int[] boolHandles, boolean[] boolValues,
+                        int[] intHandles, int[] intValues,
+                        int[] longHandles, long[] longValues,
+                        int[] floatHandles, float[] floatValues) {
+        beginBatch();
         try {
-            SharedPreferences.Editor tempEdit = prefs.edit();
-            tempEdit.apply();
-            
-            JSONObject all = new JSONObject();
-            for (String storedKey : prefs.getAll().keySet()) {
-                // Only include keys for this game
-                String prefix = gameIdentifier + ".";
-                if (storedKey.startsWith(prefix)) {
-                    // Remove the prefix to get the original key
-                    String originalKey = storedKey.substring(prefix.length());
-                    all.put(originalKey, prefs.getAll().get(storedKey));
+            if (boolHandles != null && boolValues != null) {
+                for (int i = 0; i < boolHandles.length && i < boolValues.length; i++) {
+                    setBool(boolHandles[i], boolValues[i]);
                 }
             }
-            
-            if (key != null && !key.isEmpty()) {
-                // If a specific key was requested
-                String gameKey = getGameSpecificKey(key);
-                if (prefs.contains(gameKey)) {
-                    JSONObject single = new JSONObject();
-                    single.put(key, prefs.getAll().get(gameKey));
-                    return single.toString();
-                } else {
-                    return "{\"err_msg\":\"Key not found\"}";
+            if (intHandles != null && intValues != null) {
+                for (int i = 0; i < intHandles.length && i < intValues.length; i++) {
+                    setInt(intHandles[i], intValues[i]);
                 }
-            } else {
-                // Return all game-specific keys
-                return all.toString();
             }
-        } catch (JSONException e) {
-            return "{\"err_msg\":\"" + e.getMessage() + "\"}";
+            if (longHandles != null && longValues != null) {
+                for (int i = 0; i < longHandles.length && i < longValues.length; i++) {
+                    setLong(longHandles[i], longValues[i]);
+                }
+            }
+            if (floatHandles != null && floatValues != null) {
+                for (int i = 0; i < floatHandles.length && i < floatValues.length; i++) {
+                    setFloat(floatHandles[i], floatValues[i]);
+                }
+            }
+        } finally {
+            commitBatch();
         }
     }
     
     /**
-     * Sync local changes to cloud
+     * Start a write batch. Saves made until the matching commitBatch() are
+     * written to disk with a single apply. Batches may be nested.
      */
-    public void syncToCloud() {
-        if (!isCloudAvailable()) {
-            Log.w(TAG, "Cannot sync to cloud - cloud not available");
-            return;
+    public void beginBatch() {
+        synchronized (stateLock) {
+            batchDepth++;
         }
-        
-        try {
-            // Create JSON containing only game-specific keys
-            final JSONObject saveData = new JSONObject();
-            for (String key : prefs.getAll().keySet()) {
-                String prefix = gameIdentifier + ".";
-                if (key.startsWith(prefix)) {
-                    // Remove the prefix to get the original key
-                    String originalKey = key.substring(prefix.length());
-                    saveData.put(originalKey, prefs.getAll().get(key));
-                }
+    }
+    
+    /**
+     * End a write batch, flushing all pending saves in one apply
+     */
+    public void commitBatch() {
+        awaitLocalStore();
+        boolean flush = false;
+        synchronized (stateLock) {
+            if (batchDepth == 0) {
+                Log.w(TAG, "commitBatch called without a matching beginBatch");
+                return;
             }
             
-            // Open the saved game
-            snapshotsClient.open(cloudSaveName, true)
-                .addOnSuccessListener((Activity) ctx, result -> {
-                    try {
-                        // Handle data based on response type
-                        if (result.isConflict()) {
-                            // Handle conflict resolution
-                            handleSnapshotConflict(result, saveData);
-                        } else {
-                            currentSnapshot = result.getData();
-                            writeSnapshotData(currentSnapshot, saveData);
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error syncing to cloud: " + e.getMessage());
-                    }
-                })
-                .addOnFailureListener((Activity) ctx,
-                    new OnFailureListener() {
-                        @Override
-                        public void onFailure(Exception e) {
-                            Log.e(TAG, "Failed to open snapshot: " + e.getMessage());
-                        }
-                    }
-                );
-        } catch (Exception e) {
-            Log.e(TAG, "Error syncing to cloud: " + e.getMessage());
+            batchDepth--;
+            if (batchDepth == 0 && pendingWrites > 0) {
+                flushesAvoided += pendingWrites - 1;
+                pendingWrites = 0;
+                flush = true;
+            }
+        }
+        if (flush) {
+            applyLocalWrites();
         }
     }
     
     /**
-     * Write data to a snapshot and commit changes
+     * Save many typed values in one call (one JNI crossing, one disk write).
+     * Any array pair may be null; keys and values are matched by index.
      */
-    private void writeSnapshotData(Snapshot snapshot, JSONObject data) {
+    public void saveBulk(String[] stringKeys, String[] stringValues,
+                         String[] boolKeys, boolean[] boolValues,
+                         String[] intKeys, int[] intValues,
+                         String[] longKeys, long[] longValues,
+                         String[] floatKeys, float[] floatValues) {
+        beginBatch();
         try {
-            // Write the game data to the snapshot
-            snapshot.getSnapshotContents().writeBytes(data.toString().getBytes());
-            
-            // Create the change metadata
-            SnapshotMetadataChange metadataChange = new SnapshotMetadataChange.Builder()
-                .setDescription("Save at " + Calendar.getInstance().getTime().toString())
-                .build();
-            
-            // Commit the change
-            snapshotsClient.commitAndClose(snapshot, metadataChange)
-                .addOnSuccessListener((Activity) ctx, 
-                    new OnSuccessListener<SnapshotMetadata>() {
+            if (stringKeys != null && stringValues != null) {
+                for (int i = 0; i < stringKeys.length && i < stringValues.length; i++) {
+                    saveString(stringKeys[i], stringValues[i]);
+                }
+            }
+            if (boolKeys != null && boolValues != null) {
+                for (int i = 0; i < boolKeys.length && i < boolValues.length; i++) {
+                    saveBool(boolKeys[i], boolValues[i]);
+                }
+            }
+            if (intKeys != null && intValues != null) {
+                for (int i = 0; i < intKeys.length && i < intValues.length; i++) {
+                    saveInt(intKeys[i], intValues[i]);
+                }
+            }
+            if (longKeys != null && longValues != null) {
+                for (int i = 0; i < longKeys.length && i < longValues.length; i++) {
+                    saveLong(longKeys[i], longValues[i]);
+                }
+            }
+            if (floatKeys != null && floatValues != null) {
+                for (int i = 0; i < floatKeys.length && i < floatValues.length; i++) {
+                    saveFloat(floatKeys[i], floatValues[i]);
+                }
+            }
+        } finally {
+            commitBatch();
+        }
+    }
+    
+    /**
+     * Number of times pending saves were written to disk
+     */
+    public long getFlushCount() {
+        return flushCount;
+    }
+    
+    /**
+     * Number of disk writes saved by batching
+     */
+    public long getFlushesAvoided() {
+        return flushesAvoided;
+    }
+    
+    /**
+     * Whether a save should be applied now (true) or left for the current batch's commit.
+     * Must be called with stateLock held; the caller applies after releasing it.
+     */
+    private boolean deferFlushInBatch() {
+        if (batchDepth > 0) {
+            pendingWrites++;
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Write everything staged to the store. Must be called without stateLock: the lock is
+     * only held to take the staged writes, and the editor is built and applied outside it.
+     * If another thread is flushing, it picks these writes up instead of this one waiting.
+     */
+    private void applyLocalWrites() {
+        flushRequested = true;
+        while (flushRequested && flushing.compareAndSet(false, true)) {
+            try {
+                flushRequested = false;
+                long startTime = System.nanoTime();
+                HashMap<String, Object> writes;
+                synchronized (stateLock) {
+                    persistDirtyKeys();
+                    if (stagedWrites.isEmpty()) {
+                        continue;
+                    }
+                    writes = stagedWrites;
+                    stagedWrites = new HashMap<>();
+                }
+                
+                LocalStore.Editor editor = store.edit();
+                for (Map.Entry<String, Object> entry : writes.entrySet()) {
+                    if (entry.getValue() == REMOVED) {
+                        editor.remove(entry.getKey());
+                    } else {
+                        editor.put(entry.getKey(), entry.getValue());
+                    }
+                }
+                editor.apply();
+                flushCount++;
+                EZMetrics.increment(EZMetrics.COUNT_LOCAL_FLUSHES);
+                EZMetrics.recordSince(EZMetrics.HIST_LOCAL_FLUSH, startTime);
+            } finally {
+                flushing.set(false);
+            }
+        }
+    }
+    
+    /**
+     * Change a cached value and its key slot, if registered. Must be called with stateLock held.
+     */
+    private void cachePut(String key, Object value) {
+        localCache.put(key, value);
+        keySlots.update(key, value);
+    }
+    
+    private void cacheRemove(String key) {
+        localCache.remove(key);
+        keySlots.update(key, null);
+    }
+    
+    /**
+     * Record that a key changed locally and needs to be uploaded
+     */
+    private void markDirty(String key) {
+        keyVersions.put(key, ++versionCounter);
+        keyTimestamps.put(key, System.currentTimeMillis());
+        dirtyKeys.add(key);
+        // Persisted with the dirty set even when the key was already dirty, as its edit time changed
+        onDirtyKeysChanged();
+    }
+    
+    /**
+     * Restore the dirty-key set and edit times saved by a previous session. If no set
+     * was ever saved (first run with tracking), every local key is treated as dirty.
+     * Keys without a recorded edit time get none (timestamp 0), so they never win over
+     * a cloud value that has one and are only uploaded where the cloud lacks them.
+     */
+    private void loadDirtyKeys(Map<String, Object> stored) {
+        dirtyKeys.clear();
+        dirtyKeysChanged = false;
+        if (!(stored.get(DIRTY_KEYS_PREF) instanceof String)) {
+            dirtyKeys.addAll(localCache.keySet());
+            onDirtyKeysChanged();
+            return;
+        }
+        
+        String storedKeys = (String) stored.get(DIRTY_KEYS_PREF);
+        if (storedKeys.isEmpty()) {
+            return;
+        }
+        String[] keys = storedKeys.split("\n");
+        Object storedTimes = stored.get(DIRTY_TIMES_PREF);
+        String[] times = storedTimes instanceof String ? ((String) storedTimes).split("\n") : new String[0];
+        for (int i = 0; i < keys.length; i++) {
+            dirtyKeys.add(keys[i]);
+            // Sets saved before edit times were persisted have no times, or a stale list
+            long time = times.length == keys.length ? parseEditTime(times[i]) : 0L;
+            if (time > 0) {
+                keyTimestamps.put(keys[i], time);
+            }
+        }
+    }
+    
+    private static long parseEditTime(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+    
+    /**
+     * Note a change to dirtyKeys so it is persisted with the next flush
+     */
+    private void onDirtyKeysChanged() {
+        dirtyKeysChanged = true;
+        dirtyKeyCount = dirtyKeys.size();
+    }
+    
+    /**
+     * Stage the dirty-key set, and the edit time of each key in the same order, so they
+     * are written with the next flush
+     */
+    private void persistDirtyKeys() {
+        if (!dirtyKeysChanged) {
+            return;
+        }
+        StringBuilder keys = new StringBuilder();
+        StringBuilder times = new StringBuilder();
+        for (String key : dirtyKeys) {
+            if (times.length() > 0) {
+                keys.append('\n');
+                times.append('\n');
+            }
+            keys.append(key);
+            times.append(getKeyTimestamp(key));
+        }
+        stagedWrites.put(DIRTY_KEYS_PREF, keys.toString());
+        stagedWrites.put(DIRTY_TIMES_PREF, times.toString());
+        dirtyKeysChanged = false;
+    }
+    
+    /**
+     * Check if there are local changes that have not been synced to the cloud
+     */
+    public boolean hasUnsyncedChanges() {
+        awaitLocalStore();
+        synchronized (stateLock) {
+            return !dirtyKeys.isEmpty();
+        }
+    }
+    
+    /**
+     * Enable or disable deflate compression of uploaded snapshots
+     */
+    public void setSnapshotCompression(boolean enabled) {
+        compressSnapshots = enabled;
+    }
+    
+    /**
+     * Timing and size of the last snapshot encode and decode, as JSON
+     */
+    public String getSnapshotStats() {
+        try {
+            JSONObject stats = new JSONObject();
+            stats.put("formatVersion", SnapshotCodec.FORMAT_VERSION);
+            stats.put("compression", compressSnapshots);
+            stats.put("lastEncodeMicros", lastEncodeNanos / 1000);
+            stats.put("lastEncodedBytes", lastEncodedSize);
+            stats.put("lastDecodeMicros", lastDecodeNanos / 1000);
+            stats.put("lastDecodedBytes", lastDecodedSize);
+            return stats.toString();
+        } catch (JSONException e) {
+            return "{\"err_msg\":\"" + e.getMessage() + "\"}";
+        }
+    }
+    
+    /**
+     * Check if key exists in local storage
+     */
+    public boolean keyExists(String key) {
+        awaitLocalStore();
+        return localCache.containsKey(key);
+    }
+    
+    /**
+     * Load data as JSON string
+     */
+    public String loadNativeDataAsJSONString(String key) {
+        awaitLocalStore();
+        try {
+            if (key != null && !key.isEmpty()) {
+                // If a specific key was requested
+                Object value = localCache.get(key);
+                if (value != null) {
+                    JSONObject single = new JSONObject();
+                    single.put(key, value);
+                    return single.toString();
+                } else {
+                    return "{\"err_msg\":\"Key not found\"}";
+                }
+            } else {
+                // Return all game-specific keys
+                StringBuilder json = new StringBuilder(localCache.size() * 32);
+                writeEntriesJSON(json, localCache);
+                return json.toString();
+            }
+        } catch (JSONException | IOException e) {
+            return "{\"err_msg\":\"" + e.getMessage() + "\"}";
+        }
+    }
+    
+    /**
+     * Load one page of keys starting with prefix (e.g. "inventory.") as
+     * {"entries":{...},"next":key}. Pass the returned next key as afterKey to get the
+     * following page; next is null on the last page.
+     */
+    public String loadPrefixAsJSONString(String prefix, String afterKey, int limit) {
+        return loadPageAsJSONString(prefixRange(prefix), afterKey, limit);
+    }
+    
+    /**
+     * Load one page of keys from fromKey (inclusive) to toKey (exclusive), paged like
+     * loadPrefixAsJSONString. An empty fromKey or toKey leaves that end open.
+     */
+    public String loadRangeAsJSONString(String fromKey, String toKey, String afterKey, int limit) {
+        return loadPageAsJSONString(keyRange(fromKey, toKey), afterKey, limit);
+    }
+    
+    /**
+     * Count the keys starting with prefix
+     */
+    public int countKeysWithPrefix(String prefix) {
+        awaitLocalStore();
+        return prefixRange(prefix).size();
+    }
+    
+    /**
+     * Stream every key starting with prefix ("" for all) to a JSON file without
+     * building the document in memory. Returns the number of entries written, or -1.
+     */
+    public int exportLocalData(String prefix, String filePath) {
+        awaitLocalStore();
+        Writer out = null;
+        try {
+            out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(filePath), "UTF-8"));
+            int written = writeEntriesJSON(out, prefixRange(prefix));
+            out.flush();
+            return written;
+        } catch (IOException e) {
+            Log.e(TAG, "Error exporting local data: " + e.getMessage());
+            return -1;
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    Log.e(TAG, "Error closing export file: " + e.getMessage());
+                }
+            }
+        }
+    }
+    
+    private NavigableMap<String, Object> prefixRange(String prefix) {
+        if (prefix == null || prefix.isEmpty()) {
+            return localCache;
+        }
+        return localCache.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+    
+    private NavigableMap<String, Object> keyRange(String fromKey, String toKey) {
+        boolean hasFrom = fromKey != null && !fromKey.isEmpty();
+        boolean hasTo = toKey != null && !toKey.isEmpty();
+        if (hasFrom && hasTo) {
+            return fromKey.compareTo(toKey) < 0 ? localCache.subMap(fromKey, true, toKey, false)
+                    : localCache.subMap(fromKey, true, fromKey, false);
+        } else if (hasFrom) {
+            return localCache.tailMap(fromKey, true);
+        } else if (hasTo) {
+            return localCache.headMap(toKey, false);
+        }
+        return localCache;
+    }
+    
+    private String loadPageAsJSONString(NavigableMap<String, Object> range, String afterKey, int limit) {
+        awaitLocalStore();
+        if (afterKey != null && !afterKey.isEmpty()) {
+            range = range.tailMap(afterKey, false);
+        }
+        if (limit <= 0) {
+            limit = Integer.MAX_VALUE;
+        }
+        
+        try {
+            String lastKey = limit == Integer.MAX_VALUE ? null : nthKey(range, limit - 1);
+            NavigableMap<String, Object> page = lastKey != null ? range.headMap(lastKey, true) : range;
+            // Only report a next page if one exists
+            String nextKey = lastKey != null && range.higherKey(lastKey) != null ? lastKey : null;
+            
+            StringBuilder json = new StringBuilder();
+            json.append("{\"entries\":");
+            writeEntriesJSON(json, page);
+            json.append(",\"next\":").append(nextKey != null ? JSONObject.quote(nextKey) : "null").append('}');
+            return json.toString();
+        } catch (IOException e) {
+            return "{\"err_msg\":\"" + e.getMessage() + "\"}";
+        }
+    }
+    
+    private static String nthKey(NavigableMap<String, Object> range, int index) {
+        int i = 0;
+        for (String key : range.keySet()) {
+            if (i++ == index) {
+                return key;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Write a sorted range as a JSON object directly to out. Returns the number of entries written.
+     */
+    private static int writeEntriesJSON(Appendable out, NavigableMap<String, Object> range) throws IOException {
+        out.append('{');
+        int written = 0;
+        for (Map.Entry<String, Object> entry : range.entrySet()) {
+            if (written > 0) {
+                out.append(',');
+            }
+            out.append(JSONObject.quote(entry.getKey())).append(':');
+            appendJSONValue(out, entry.getValue());
+            written++;
+        }
+        out.append('}');
+        return written;
+    }
+    
+    private static void appendJSONValue(Appendable out, Object value) throws IOException {
+        if (value instanceof String) {
+            out.append(JSONObject.quote((String) value));
+        } else if (value instanceof Float || value instanceof Double) {
+            double number = ((Number) value).doubleValue();
+            // JSON has no NaN or infinity
+            out.append(Double.isNaN(number) || Double.isInfinite(number) ? "null" : value.toString());
+        } else {
+            out.append(String.valueOf(value));
+        }
+    }
+    
+    /**
+     * Refresh cached encoded entries for dirty keys and return all entries to upload.
+     * Must be called with stateLock held; the returned list is safe to encode without it.
+     */
+    private ArrayList<byte[]> collectSyncEntries() {
+        if (!encodedEntriesValid) {
+            encodedEntries.clear();
+            for (Map.Entry<String, Object> entry : localCache.entrySet()) {
+                encodedEntries.put(entry.getKey(),
+                        SnapshotCodec.encodeEntry(entry.getKey(), entry.getValue(), getKeyTimestamp(entry.getKey())));
+            }
+            encodedEntriesValid = true;
+        } else {
+            for (String key : dirtyKeys) {
+                Object value = localCache.get(key);
+                if (value != null) {
+                    encodedEntries.put(key, SnapshotCodec.encodeEntry(key, value, getKeyTimestamp(key)));
+                } else {
+                    encodedEntries.remove(key);
+                }
+            }
+        }
+        return new ArrayList<>(encodedEntries.values());
+    }
+    
+    /**
+     * Build the upload payload from encoded entries
+     */
+    private byte[] buildSyncPayload(ArrayList<byte[]> entries) {
+        long startTime = System.nanoTime();
+        byte[] payload = SnapshotCodec.encode(entries, compressSnapshots);
+        lastEncodeNanos = System.nanoTime() - startTime;
+        lastEncodedSize = payload.length;
+        EZMetrics.recordMicros(EZMetrics.HIST_ENCODE, lastEncodeNanos / 1000);
+        Log.d(TAG, "Encoded " + entries.size() + " entries into " + payload.length
+                + " bytes in " + (lastEncodeNanos / 1000) + "us");
+        return payload;
+    }
+    
+    private long getKeyTimestamp(String key) {
+        Long timestamp = keyTimestamps.get(key);
+        return timestamp != null ? timestamp : 0L;
+    }
+    
+    /**
+     * Use a built-in merge rule (SnapshotMerger.RULE_*) for keys starting with keyPrefix
+     * when resolving cloud conflicts. Keys without a rule use last-writer-wins.
+     */
+    public void setMergeRule(String keyPrefix, int rule) {
+        merger.setRule(keyPrefix, rule);
+    }
+    
+    /**
+     * Use a custom resolver for keys starting with keyPrefix when resolving cloud conflicts
+     */
+    public void setMergeResolver(String keyPrefix, SnapshotMerger.KeyResolver resolver) {
+        merger.setResolver(keyPrefix, resolver);
+    }
+    
+    /**
+     * Spread keys over count cloud snapshots so a sync only uploads the shards holding
+     * changed keys, and conflicts only touch those shards. A small manifest snapshot
+     * records the layout. 1 (default) keeps everything in one snapshot. Must be called
+     * before initialize(), with the same value on every device.
+     */
+    public void setSnapshotShards(int count) {
+        if (store != null) {
+            Log.w(TAG, "Snapshot shards must be set before initialize()");
+            return;
+        }
+        shardCount = Math.max(1, count);
+        for (int i = shardPrefixes.size() - 1; i >= 0; i--) {
+            if (shardPrefixTargets.get(i) >= shardCount) {
+                Log.w(TAG, "Dropping shard " + shardPrefixTargets.get(i) + " for prefix " + shardPrefixes.get(i)
+                        + ": only " + shardCount + " shards");
+                shardPrefixes.remove(i);
+                shardPrefixTargets.remove(i);
+            }
+        }
+    }
+    
+    /**
+     * Keep every key starting with keyPrefix in one shard instead of placing keys by
+     * hash. Must be called after setSnapshotShards() and before initialize(); the longest
+     * matching prefix wins. A shard outside 0..count-1 is rejected and the previous
+     * mapping for the prefix, if any, is kept.
+     */
+    public void setShardForPrefix(String keyPrefix, int shard) {
+        if (store != null) {
+            Log.w(TAG, "Shard prefixes must be set before initialize()");
+            return;
+        }
+        if (shard < 0 || shard >= shardCount) {
+            Log.w(TAG, "Ignoring shard " + shard + " for prefix " + keyPrefix + ": shards are 0.." + (shardCount - 1));
+            return;
+        }
+        int index = shardPrefixes.indexOf(keyPrefix);
+        if (index >= 0) {
+            shardPrefixTargets.set(index, shard);
+        } else {
+            shardPrefixes.add(keyPrefix);
+            shardPrefixTargets.add(shard);
+        }
+    }
+    
+    private int shardFor(String key) {
+        int bestLength = -1;
+        int shard = -1;
+        for (int i = 0; i < shardPrefixes.size(); i++) {
+            String prefix = shardPrefixes.get(i);
+            if (prefix.length() > bestLength && key.startsWith(prefix)) {
+                bestLength = prefix.length();
+                shard = shardPrefixTargets.get(i);
+            }
+        }
+        if (shard < 0) {
+            // String.hashCode is specified, so every device places a key in the same shard
+            shard = key.hashCode() & 0x7fffffff;
+        }
+        return shard % shardCount;
+    }
+    
+    private String shardSnapshotName(int shard) {
+        return getGameKeys().cloudSaveName + "_s" + shard;
+    }
+    
+    private String manifestSnapshotName() {
+        return getGameKeys().cloudSaveName + "_m";
+    }
+    
+    /**
+     * Clear dirty flags for uploaded keys that have not changed again since the upload
+     */
+    private void onSyncCommitted(HashMap<String, Long> uploadedVersions) {
+        postEvent(EZCloudEvents.EVENT_SYNC_COMMITTED, 0, uploadedVersions.size());
+        synchronized (stateLock) {
+            for (Map.Entry<String, Long> entry : uploadedVersions.entrySet()) {
+                // Keys restored dirty from an earlier session were uploaded as version 0
+                Long version = keyVersions.get(entry.getKey());
+                if (entry.getValue() == (version != null ? version : 0L)) {
+                    dirtyKeys.remove(entry.getKey());
+                    onDirtyKeysChanged();
+                }
+            }
+            persistDirtyKeys();
+            if (batchDepth > 0) {
+                return;
+            }
+        }
+        applyLocalWrites();
+    }
+    
+    /**
+     * Sync local changes to cloud
+     */
+    public void syncToCloud() {
+        if (!isCloudAvailable()) {
+            Log.w(TAG, "Cannot sync to cloud - cloud not available");
+            return;
+        }
+        
+        // The scheduler merges bursts of requests and runs one upload at a time
+        syncScheduler.request(false);
+    }
+    
+    /**
+     * Sync local changes to cloud as soon as possible, skipping debounce and backoff.
+     * Call this when the app is pausing.
+     */
+    public void flushToCloud() {
+        if (!isCloudAvailable()) {
+            Log.w(TAG, "Cannot sync to cloud - cloud not available");
+            return;
+        }
+        
+        syncScheduler.request(true);
+    }
+    
+    /**
+     * Set how long sync requests wait for more changes (debounceMs) and the minimum
+     * time between uploads (minIntervalMs)
+     */
+    public void setSyncPolicy(long debounceMs, long minIntervalMs) {
+        syncScheduler.setPolicy(debounceMs, minIntervalMs);
+    }
+    
+    /**
+     * Sync scheduler counters, for diagnostics
+     */
+    public String getSyncStats() {
+        return syncScheduler.describe();
+    }
+    
+    /**
+     * Receives the outcome of writing one snapshot
+     */
+    private interface CommitCallback {
+        void onCommitted(boolean success);
+    }
+    
+    /**
+     * Receives a snapshot opened for reading, after any conflict has been resolved
+     */
+    private interface SnapshotCallback {
+        void onSnapshot(Snapshot snapshot);
+        
+        void onFailure();
+    }
+    
+    private void performSync() {
+        if (shardCount > 1) {
+            performShardedSync();
+            return;
+        }
+        
+        try {
+            final ArrayList<byte[]> entries;
+            final HashMap<String, Long> uploadedVersions = new HashMap<>();
+            synchronized (stateLock) {
+                if (dirtyKeys.isEmpty()) {
+                    Log.d(TAG, "No local changes since last sync, skipping upload for " + getGameKeys().cloudSaveName);
+                    syncScheduler.onSyncFinished(true);
+                    return;
+                }
+                
+                entries = collectSyncEntries();
+                for (String key : dirtyKeys) {
+                    Long version = keyVersions.get(key);
+                    uploadedVersions.put(key, version != null ? version : 0L);
+                }
+            }
+            
+            // Encode only game-specific keys
+            final byte[] saveData = buildSyncPayload(entries);
+            final CommitCallback done = success -> {
+                if (success) {
+                    onSyncCommitted(uploadedVersions);
+                }
+                syncScheduler.onSyncFinished(success);
+            };
+            
+            // Open the saved game
+            openSnapshot(getGameKeys().cloudSaveName)
+                .addOnSuccessListener(listenerExecutor, result -> {
+                    try {
+                        // Handle data based on response type
+                        if (result.isConflict()) {
+                            // Handle conflict resolution
+                            handleSnapshotConflict(result, 1, -1, 0L, done);
+                        } else {
+                            writeOpenedSnapshot(result.getData(), saveData, -1, 0L, done);
+                        }
+                    } catch (Exception e) {
+                        Log.e(TAG, "Error syncing to cloud: " + e.getMessage());
+                        done.onCommitted(false);
+                    }
+                })
+                .addOnFailureListener(listenerExecutor,
+                    new OnFailureListener() {
+                        @Override
+                        public void onFailure(Exception e) {
+                            Log.e(TAG, "Failed to open snapshot: " + e.getMessage());
+                            postEvent(EZCloudEvents.EVENT_ERROR, EZCloudEvents.ERROR_OPEN_FAILED, 0);
+                            done.onCommitted(false);
+                        }
+                    }
+                );
+        } catch (Exception e) {
+            Log.e(TAG, "Error syncing to cloud: " + e.getMessage());
+            syncScheduler.onSyncFinished(false);
+        }
+    }
+    
+    /**
+     * Sharded upload: read the manifest, open and commit every shard holding a changed
+     * key in parallel, then commit the manifest with the new shard generations
+     */
+    private void performShardedSync() {
+        try {
+            openSnapshot(manifestSnapshotName(), SnapshotsClient.RESOLUTION_POLICY_MOST_RECENTLY_MODIFIED)
+                .addOnSuccessListener(listenerExecutor, result -> {
+                    try {
+                        if (result.isConflict()) {
+                            throw new IOException("Manifest conflict was not resolved by policy");
+                        }
+                        Snapshot manifestSnapshot = result.getData();
+                        uploadShards(manifestSnapshot, readManifest(manifestSnapshot));
+                    } catch (Exception e) {
+                        Log.e(TAG, "Error syncing to cloud: " + e.getMessage());
+                        syncScheduler.onSyncFinished(false);
+                    }
+                })
+                .addOnFailureListener(listenerExecutor, e -> {
+                    Log.e(TAG, "Failed to open snapshot manifest: " + e.getMessage());
+                    postEvent(EZCloudEvents.EVENT_ERROR, EZCloudEvents.ERROR_OPEN_FAILED, 0);
+                    syncScheduler.onSyncFinished(false);
+                });
+        } catch (Exception e) {
+            Log.e(TAG, "Error syncing to cloud: " + e.getMessage());
+            syncScheduler.onSyncFinished(false);
+        }
+    }
+    
+    private void uploadShards(final Snapshot manifestSnapshot, Map<String, Object> manifest) {
+        // A different shard count in the cloud means keys moved, so every shard is rewritten
+        final boolean layoutChanged = manifestShardCount(manifest) != shardCount;
+        final HashMap<String, Long> uploadedVersions = new HashMap<>();
+        final ArrayList<ArrayList<byte[]>> shardEntries = new ArrayList<>();
+        final boolean[] changedShards = new boolean[shardCount];
+        
+        synchronized (stateLock) {
+            if (dirtyKeys.isEmpty() && !layoutChanged) {
+                Log.d(TAG, "No local changes since last sync, skipping upload for " + getGameKeys().cloudSaveName);
+                snapshots().discardAndClose(manifestSnapshot);
+                syncScheduler.onSyncFinished(true);
+                return;
+            }
+            
+            collectSyncEntries();
+            for (int i = 0; i < shardCount; i++) {
+                shardEntries.add(new ArrayList<byte[]>());
+            }
+            for (Map.Entry<String, byte[]> entry : encodedEntries.entrySet()) {
+                shardEntries.get(shardFor(entry.getKey())).add(entry.getValue());
+            }
+            for (String key : dirtyKeys) {
+                Long version = keyVersions.get(key);
+                uploadedVersions.put(key, version != null ? version : 0L);
+                changedShards[shardFor(key)] = true;
+            }
+        }
+        
+        final HashMap<String, Object> newManifest = layoutChanged ? new HashMap<String, Object>()
+                : new HashMap<>(manifest);
+        newManifest.put(MANIFEST_SHARDS_KEY, shardCount);
+        final ArrayList<Integer> shards = new ArrayList<>();
+        final ArrayList<byte[]> payloads = new ArrayList<>();
+        final ArrayList<Long> generations = new ArrayList<>();
+        for (int i = 0; i < shardCount; i++) {
+            if (!changedShards[i] && !layoutChanged) {
+                continue;
+            }
+            long generation = shardGenerations.nextLong();
+            ArrayList<byte[]> entries = shardEntries.get(i);
+            entries.add(SnapshotCodec.encodeEntry(SHARD_GEN_KEY, generation, 0L));
+            newManifest.put(MANIFEST_GEN_PREFIX + i, generation);
+            shards.add(i);
+            payloads.add(buildSyncPayload(entries));
+            generations.add(generation);
+        }
+        
+        Log.d(TAG, "Uploading " + shards.size() + " of " + shardCount + " shards for " + getGameKeys().cloudSaveName);
+        final ShardUpload upload = new ShardUpload(shards.size());
+        final CommitCallback shardDone = success -> {
+            if (upload.finish(success)) {
+                finishShardedSync(manifestSnapshot, newManifest, upload.failed, uploadedVersions);
+            }
+        };
+        
+        // Shards are independent snapshots, so their opens and commits run in parallel
+        for (int i = 0; i < shards.size(); i++) {
+            final int shard = shards.get(i);
+            final byte[] payload = payloads.get(i);
+            final long generation = generations.get(i);
+            openSnapshot(shardSnapshotName(shard))
+                .addOnSuccessListener(listenerExecutor, result -> {
+                    try {
+                        if (result.isConflict()) {
+                            handleSnapshotConflict(result, 1, shard, generation, shardDone);
+                        } else {
+                            writeOpenedSnapshot(result.getData(), payload, shard, generation, shardDone);
+                        }
+                    } catch (Exception e) {
+                        Log.e(TAG, "Error syncing shard " + shard + ": " + e.getMessage());
+                        shardDone.onCommitted(false);
+                    }
+                })
+                .addOnFailureListener(listenerExecutor, e -> {
+                    Log.e(TAG, "Failed to open shard " + shard + ": " + e.getMessage());
+                    postEvent(EZCloudEvents.EVENT_ERROR, EZCloudEvents.ERROR_OPEN_FAILED, 0);
+                    shardDone.onCommitted(false);
+                });
+        }
+    }
+    
+    /**
+     * Commit the manifest once every changed shard is committed. If a shard failed the
+     * manifest is left as it was; its keys stay dirty and are uploaded on the retry.
+     */
+    private void finishShardedSync(Snapshot manifestSnapshot, HashMap<String, Object> manifest, boolean failed,
+                                   final HashMap<String, Long> uploadedVersions) {
+        if (failed) {
+            snapshots().discardAndClose(manifestSnapshot);
+            syncScheduler.onSyncFinished(false);
+            return;
+        }
+        
+        writeSnapshotData(manifestSnapshot, SnapshotCodec.encode(manifest, null, false), success -> {
+            if (success) {
+                onSyncCommitted(uploadedVersions);
+            }
+            syncScheduler.onSyncFinished(success);
+        });
+    }
+    
+    /**
+     * Counts down the shards of one sharded upload. Callbacks may arrive on any thread.
+     */
+    private static final class ShardUpload {
+        private int remaining;
+        boolean failed = false;
+        
+        ShardUpload(int shards) {
+            remaining = shards;
+        }
+        
+        /**
+         * Record one shard's result; returns true for the last one
+         */
+        synchronized boolean finish(boolean success) {
+            if (!success) {
+                failed = true;
+            }
+            return --remaining == 0;
+        }
+    }
+    
+    /**
+     * Open a snapshot with manual conflict resolution, timing the round trip
+     */
+    private Task<SnapshotsClient.DataOrConflict<Snapshot>> openSnapshot(String name) {
+        return openSnapshot(name, SnapshotsClient.RESOLUTION_POLICY_MANUAL);
+    }
+    
+    private Task<SnapshotsClient.DataOrConflict<Snapshot>> openSnapshot(String name, int conflictPolicy) {
+        final long startTime = System.nanoTime();
+        return snapshots().open(name, true, conflictPolicy)
+            .addOnSuccessListener(listenerExecutor, result -> EZMetrics.recordSince(EZMetrics.HIST_SNAPSHOT_OPEN, startTime))
+            .addOnFailureListener(listenerExecutor, e -> EZMetrics.recordSince(EZMetrics.HIST_SNAPSHOT_OPEN, startTime));
+    }
+    
+    /**
+     * Upload through a snapshot opened without a conflict. If it holds data this device
+     * has not seen, another device committed since this one last synced or loaded, and
+     * that data is merged with the local changes first so the upload does not drop it.
+     * The single snapshot is only read when its fingerprint changed; shard fingerprints
+     * are not recorded, so a non-empty shard is always merged.
+     */
+    private void writeOpenedSnapshot(Snapshot snapshot, byte[] payload, int shard, long generation,
+                                     CommitCallback callback) throws IOException {
+        String recorded = snapshotFingerprints.get(snapshot.getMetadata().getUniqueName());
+        if (shard < 0 && recorded != null && fingerprintMatches(recorded, snapshot.getMetadata())) {
+            writeSnapshotData(snapshot, payload, callback);
+            return;
+        }
+        byte[] remoteData = snapshot.getSnapshotContents().readFully();
+        if (remoteData == null || remoteData.length == 0) {
+            writeSnapshotData(snapshot, payload, callback);
+            return;
+        }
+        EZMetrics.add(EZMetrics.COUNT_BYTES_DOWN, remoteData.length);
+        
+        final long baseVersion = versionCounter;
+        HashMap<String, Long> remoteTimes = new HashMap<>();
+        Map<String, Object> remoteValues = SnapshotCodec.decode(remoteData, remoteTimes);
+        remoteValues.remove(SHARD_GEN_KEY);
+        SnapshotMerger.Result merged = mergeLocalChanges(remoteValues, remoteTimes, shard);
+        Log.d(TAG, "Merged " + remoteValues.size() + " unseen remote entries into the upload of "
+                + snapshot.getMetadata().getUniqueName());
+        applyMergedValues(merged, baseVersion);
+        writeSnapshotData(snapshot, encodeMerged(merged, shard, generation), callback);
+    }
+    
+    /**
+     * Write data to a snapshot and commit changes
+     */
+    private void writeSnapshotData(final Snapshot snapshot, final byte[] data, final CommitCallback callback) {
+        try {
+            // Write the game data to the snapshot
+            snapshot.getSnapshotContents().writeBytes(data);
+            
+            // Create the change metadata
+            SnapshotMetadataChange metadataChange = new SnapshotMetadataChange.Builder()
+                .setDescription("Save at " + Calendar.getInstance().getTime().toString())
+                .setProgressValue(SnapshotCodec.fingerprint(data))
+                .build();
+            
+            // Commit the change
+            final long commitStart = System.nanoTime();
+            snapshots().commitAndClose(snapshot, metadataChange)
+                .addOnSuccessListener(listenerExecutor, 
+                    new OnSuccessListener<SnapshotMetadata>() {
                         @Override
                         public void onSuccess(SnapshotMetadata snapshotMetadata) {
-                            Log.d(TAG, "Saved game synced to cloud: " + cloudSaveName);
+                            EZMetrics.recordSince(EZMetrics.HIST_SNAPSHOT_COMMIT, commitStart);
+                            EZMetrics.add(EZMetrics.COUNT_BYTES_UP, data.length);
+                            Log.d(TAG, "Saved game synced to cloud: " + snapshotMetadata.getUniqueName());
+                            if (comparesFingerprint(snapshotMetadata.getUniqueName())) {
+                                // Written with the dirty-key set when the sync finishes
+                                recordFingerprint(snapshotMetadata.getUniqueName(), fingerprintOf(snapshotMetadata), false);
+                            }
+                            postEvent(EZCloudEvents.EVENT_BYTES_TRANSFERRED, EZCloudEvents.DIRECTION_UP, data.length);
+                            callback.onCommitted(true);
                         }
                     }
                 )
-                .addOnFailureListener((Activity) ctx,
+                .addOnFailureListener(listenerExecutor,
                     new OnFailureListener() {
                         @Override
                         public void onFailure(Exception e) {
+                            EZMetrics.recordSince(EZMetrics.HIST_SNAPSHOT_COMMIT, commitStart);
                             Log.e(TAG, "Failed to commit snapshot: " + e.getMessage());
+                            postEvent(EZCloudEvents.EVENT_ERROR, EZCloudEvents.ERROR_COMMIT_FAILED, 0);
+                            callback.onCommitted(false);
                         }
                     }
                 );
         } catch (Exception e) {
             Log.e(TAG, "Error writing snapshot data: " + e.getMessage());
+            callback.onCommitted(false);
         }
     }
     
@@ -349,184 +1827,820 @@ public class EZCloud {
     public void loadFromCloud() {
         if (!isCloudAvailable()) {
             Log.w(TAG, "Cannot load from cloud - cloud not available");
+            postEvent(EZCloudEvents.EVENT_ERROR, EZCloudEvents.ERROR_CLOUD_UNAVAILABLE, 0);
             sendUnityCallback(false);
             return;
         }
         
+        requestLoad(false);
+    }
+    
+    /**
+     * Queue a load behind any sync or load in flight; it starts once their callbacks have fired
+     */
+    private void requestLoad(final boolean quietIfUnchanged) {
+        syncScheduler.requestLoad(() -> {
+            loadFinished.set(true);
+            try {
+                performLoad(quietIfUnchanged);
+            } catch (Exception e) {
+                Log.e(TAG, "Error loading from cloud: " + e.getMessage());
+                sendLoadFailedCallback(quietIfUnchanged);
+            }
+        });
+    }
+    
+    /**
+     * Let the scheduler start the next sync or load. Every load ends here exactly once,
+     * however many of its completion paths run.
+     */
+    private void finishLoad() {
+        if (loadFinished.compareAndSet(true, false)) {
+            syncScheduler.onLoadFinished();
+        }
+    }
+    
+    private void performLoad(final boolean quietIfUnchanged) {
+        final long baseVersion = versionCounter;
+        final boolean sharded = shardCount > 1;
+        final String name = sharded ? manifestSnapshotName() : getGameKeys().cloudSaveName;
+        checkRemoteUnchanged(name, unchanged -> {
+            if (unchanged) {
+                Log.d(TAG, "Cloud data for " + name + " unchanged since last sync, skipping download");
+                EZMetrics.increment(EZMetrics.COUNT_LOADS_SKIPPED);
+                sendUnchangedCallback(quietIfUnchanged);
+            } else if (sharded) {
+                performShardedLoad(1, quietIfUnchanged, baseVersion);
+            } else {
+                loadSingleSnapshot(quietIfUnchanged, baseVersion);
+            }
+        });
+    }
+    
+    /**
+     * Receives whether a snapshot's remote metadata still matches its recorded fingerprint
+     */
+    private interface FingerprintCallback {
+        void onChecked(boolean unchanged);
+    }
+    
+    /**
+     * Compare a snapshot's remote metadata with the fingerprint recorded when this device
+     * last uploaded or applied it. Only metadata is fetched; without a recorded
+     * fingerprint, or if the check fails, the snapshot counts as changed.
+     */
+    private void checkRemoteUnchanged(final String name, final FingerprintCallback callback) {
+        final String recorded = snapshotFingerprints.get(name);
+        if (recorded == null) {
+            callback.onChecked(false);
+            return;
+        }
+        
+        try {
+            snapshots().load(true)
+                .addOnSuccessListener(listenerExecutor, result -> {
+                    boolean unchanged = false;
+                    SnapshotMetadataBuffer buffer = result.get();
+                    if (buffer != null) {
+                        try {
+                            // Cached metadata may be out of date, so it never skips a download
+                            int count = result.isStale() ? 0 : buffer.getCount();
+                            for (int i = 0; i < count; i++) {
+                                SnapshotMetadata metadata = buffer.get(i);
+                                if (name.equals(metadata.getUniqueName())) {
+                                    unchanged = fingerprintMatches(recorded, metadata);
+                                    break;
+                                }
+                            }
+                        } finally {
+                            buffer.release();
+                        }
+                    }
+                    callback.onChecked(unchanged);
+                })
+                .addOnFailureListener(listenerExecutor, e -> {
+                    Log.w(TAG, "Failed to load snapshot metadata: " + e.getMessage());
+                    callback.onChecked(false);
+                });
+        } catch (Exception e) {
+            Log.e(TAG, "Error checking snapshot metadata: " + e.getMessage());
+            callback.onChecked(false);
+        }
+    }
+    
+    /**
+     * Whether a load compares this snapshot's fingerprint: the manifest when sharded, else
+     * the single snapshot. Shard fingerprints are never read, so they are not recorded.
+     */
+    private boolean comparesFingerprint(String name) {
+        return name.equals(shardCount > 1 ? manifestSnapshotName() : getGameKeys().cloudSaveName);
+    }
+    
+    private static String fingerprintOf(SnapshotMetadata metadata) {
+        return metadata.getProgressValue() + ":" + metadata.getLastModifiedTimestamp();
+    }
+    
+    /**
+     * Snapshots written by this plugin carry a content hash as their progress value, which
+     * identifies the data by itself. Older snapshots also need the same commit time.
+     */
+    private static boolean fingerprintMatches(String recorded, SnapshotMetadata metadata) {
+        int split = recorded.indexOf(':');
+        if (split < 0) {
+            return false;
+        }
+        try {
+            long progress = Long.parseLong(recorded.substring(0, split));
+            long modified = Long.parseLong(recorded.substring(split + 1));
+            return metadata.getProgressValue() == progress
+                    && (progress > 0 || metadata.getLastModifiedTimestamp() == modified);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Remember a snapshot's fingerprint, persisted with the next local flush or now
+     */
+    private void recordFingerprint(String name, String fingerprint, boolean flush) {
+        snapshotFingerprints.put(name, fingerprint);
+        synchronized (stateLock) {
+            stagedWrites.put(FINGERPRINT_PREF_PREFIX + name, fingerprint);
+            if (!flush || batchDepth > 0) {
+                return;
+            }
+        }
+        applyLocalWrites();
+    }
+    
+    /**
+     * Restore the fingerprints recorded by previous sessions
+     */
+    private void loadFingerprints(Map<String, Object> stored) {
+        snapshotFingerprints.clear();
+        for (Map.Entry<String, Object> entry : stored.entrySet()) {
+            if (entry.getKey().startsWith(FINGERPRINT_PREF_PREFIX) && entry.getValue() instanceof String) {
+                snapshotFingerprints.put(entry.getKey().substring(FINGERPRINT_PREF_PREFIX.length()),
+                        (String) entry.getValue());
+            }
+        }
+    }
+    
+    private void loadSingleSnapshot(final boolean quietIfUnchanged, final long baseVersion) {
+        openForRead(getGameKeys().cloudSaveName, -1, 0L, new SnapshotCallback() {
+            @Override
+            public void onSnapshot(Snapshot snapshot) {
+                readSnapshotData(snapshot, quietIfUnchanged, baseVersion);
+            }
+            
+            @Override
+            public void onFailure() {
+                sendLoadFailedCallback(quietIfUnchanged);
+            }
+        });
+    }
+    
+    /**
+     * Open a snapshot for reading, merging and resolving any conflict first. A resolved
+     * shard keeps the generation the manifest expects for it.
+     */
+    private void openForRead(String name, final int shard, final long generation, final SnapshotCallback callback) {
         try {
             // Open the saved game
-            snapshotsClient.open(cloudSaveName, true)
-                .addOnSuccessListener((Activity) ctx, result -> {
+            openSnapshot(name)
+                .addOnSuccessListener(listenerExecutor, result -> {
                     try {
                         // Handle data based on response type
                         if (result.isConflict()) {
                             // Handle conflict resolution
-                            handleConflictForLoad(result);
+                            handleConflictForLoad(result, 1, shard, generation, callback);
                         } else {
-                            currentSnapshot = result.getData();
-                            readSnapshotData(currentSnapshot);
+                            callback.onSnapshot(result.getData());
                         }
                     } catch (Exception e) {
                         Log.e(TAG, "Error processing snapshot: " + e.getMessage());
-                        sendUnityCallback(false);
+                        callback.onFailure();
                     }
                 })
-                .addOnFailureListener((Activity) ctx,
+                .addOnFailureListener(listenerExecutor,
                     new OnFailureListener() {
                         @Override
                         public void onFailure(Exception e) {
                             Log.e(TAG, "Failed to open snapshot: " + e.getMessage());
-                            sendUnityCallback(false);
+                            postEvent(EZCloudEvents.EVENT_ERROR, EZCloudEvents.ERROR_OPEN_FAILED, 0);
+                            callback.onFailure();
                         }
                     }
                 );
         } catch (Exception e) {
             Log.e(TAG, "Error loading from cloud: " + e.getMessage());
-            sendUnityCallback(false);
+            callback.onFailure();
         }
     }
     
     /**
-     * Read data from a snapshot
+     * Sharded load: read the manifest, open every shard in parallel and apply their union
+     * as one diff. If a shard's generation does not match the manifest (another device was
+     * mid-upload) the load is retried before the data is applied as-is.
      */
-    private void readSnapshotData(Snapshot snapshot) {
+    private void performShardedLoad(final int attempt, final boolean quietIfUnchanged, final long baseVersion) {
         try {
-            byte[] data = snapshot.getSnapshotContents().readFully();
-            if (data != null && data.length > 0) {
-                String json = new String(data);
-                currentSnapshotContent = json;
-                
-                // Parse JSON and apply to local storage
-                JSONObject cloudData = new JSONObject(json);
-                
-                // Remove existing game-specific keys
-                SharedPreferences.Editor tempEditor = prefs.edit();
-                String prefix = gameIdentifier + ".";
-                for (String key : prefs.getAll().keySet()) {
-                    if (key.startsWith(prefix)) {
-                        tempEditor.remove(key);
+            openSnapshot(manifestSnapshotName(), SnapshotsClient.RESOLUTION_POLICY_MOST_RECENTLY_MODIFIED)
+                .addOnSuccessListener(listenerExecutor, result -> {
+                    try {
+                        if (result.isConflict()) {
+                            throw new IOException("Manifest conflict was not resolved by policy");
+                        }
+                        Snapshot manifestSnapshot = result.getData();
+                        Map<String, Object> manifest = readManifest(manifestSnapshot);
+                        String fingerprint = fingerprintOf(manifestSnapshot.getMetadata());
+                        snapshots().discardAndClose(manifestSnapshot);
+                        
+                        if (manifestShardCount(manifest) == 0) {
+                            // Nothing sharded was uploaded yet, data may still be in the single snapshot
+                            loadSingleSnapshot(quietIfUnchanged, baseVersion);
+                        } else {
+                            loadShards(manifest, fingerprint, attempt, quietIfUnchanged, baseVersion);
+                        }
+                    } catch (Exception e) {
+                        Log.e(TAG, "Error loading snapshot manifest: " + e.getMessage());
+                        sendLoadFailedCallback(quietIfUnchanged);
+                    }
+                })
+                .addOnFailureListener(listenerExecutor, e -> {
+                    Log.e(TAG, "Failed to open snapshot manifest: " + e.getMessage());
+                    postEvent(EZCloudEvents.EVENT_ERROR, EZCloudEvents.ERROR_OPEN_FAILED, 0);
+                    sendLoadFailedCallback(quietIfUnchanged);
+                });
+        } catch (Exception e) {
+            Log.e(TAG, "Error loading from cloud: " + e.getMessage());
+            sendLoadFailedCallback(quietIfUnchanged);
+        }
+    }
+    
+    private void loadShards(final Map<String, Object> manifest, final String manifestFingerprint, final int attempt,
+                            final boolean quietIfUnchanged, final long baseVersion) {
+        int shards = manifestShardCount(manifest);
+        final ShardLoad load = new ShardLoad(shards);
+        for (int i = 0; i < shards; i++) {
+            final int shard = i;
+            final Object expected = manifest.get(MANIFEST_GEN_PREFIX + shard);
+            long generation = expected instanceof Long ? (Long) expected : 0L;
+            openForRead(shardSnapshotName(shard), shard, generation, new SnapshotCallback() {
+                @Override
+                public void onSnapshot(Snapshot snapshot) {
+                    boolean last;
+                    try {
+                        HashMap<String, Long> timestamps = new HashMap<>();
+                        Map<String, Object> data = decodeSnapshot(snapshot, timestamps);
+                        snapshots().discardAndClose(snapshot);
+                        if (data == null) {
+                            data = new HashMap<>();
+                        }
+                        Object storedGeneration = data.remove(SHARD_GEN_KEY);
+                        boolean current = storedGeneration != null && storedGeneration.equals(expected);
+                        last = load.add(data, timestamps, current);
+                    } catch (Exception e) {
+                        Log.e(TAG, "Error reading shard " + shard + ": " + e.getMessage());
+                        postEvent(EZCloudEvents.EVENT_ERROR, EZCloudEvents.ERROR_DECODE_FAILED, 0);
+                        last = load.fail();
+                    }
+                    if (last) {
+                        finishShardedLoad(load, manifestFingerprint, attempt, quietIfUnchanged, baseVersion);
                     }
                 }
-                tempEditor.apply();
                 
-                // Load new data from cloud (original keys without prefix in the cloud)
-                java.util.Iterator<String> keys = cloudData.keys();
-                while (keys.hasNext()) {
-                    String key = keys.next();
-                    Object value = cloudData.get(key);
-                    String gameKey = getGameSpecificKey(key);
-                    
-                    if (value instanceof String) {
-                        prefsEditor.putString(gameKey, (String) value);
-                    } else if (value instanceof Boolean) {
-                        prefsEditor.putBoolean(gameKey, (Boolean) value);
-                    } else if (value instanceof Integer) {
-                        prefsEditor.putInt(gameKey, (Integer) value);
-                    } else if (value instanceof Long) {
-                        prefsEditor.putLong(gameKey, (Long) value);
-                    } else if (value instanceof Float) {
-                        prefsEditor.putFloat(gameKey, (Float) value);
-                    } else if (value instanceof Double) {
-                        // Store doubles as strings to preserve precision
-                        prefsEditor.putString(gameKey, value.toString());
+                @Override
+                public void onFailure() {
+                    if (load.fail()) {
+                        finishShardedLoad(load, manifestFingerprint, attempt, quietIfUnchanged, baseVersion);
                     }
                 }
-                
-                prefsEditor.apply();
-                Log.d(TAG, "Successfully loaded cloud data for " + cloudSaveName);
-                sendUnityCallback(true);
+            });
+        }
+    }
+    
+    private void finishShardedLoad(ShardLoad load, String manifestFingerprint, int attempt, boolean quietIfUnchanged,
+                                   long baseVersion) {
+        if (load.failed) {
+            sendLoadFailedCallback(quietIfUnchanged);
+        } else if (load.stale && attempt < MAX_SNAPSHOT_RESOLVE_RETRIES) {
+            Log.d(TAG, "Shards of " + getGameKeys().cloudSaveName + " changed while loading, reading them again");
+            EZMetrics.increment(EZMetrics.COUNT_RETRIES);
+            performShardedLoad(attempt + 1, quietIfUnchanged, baseVersion);
+        } else {
+            applyCloudData(load.values, load.timestamps, quietIfUnchanged, baseVersion);
+            recordFingerprint(manifestSnapshotName(), manifestFingerprint, true);
+            finishLoad();
+        }
+    }
+    
+    /**
+     * Collects the shards of one sharded load. Callbacks may arrive on any thread.
+     */
+    private static final class ShardLoad {
+        final HashMap<String, Object> values = new HashMap<>();
+        final HashMap<String, Long> timestamps = new HashMap<>();
+        private int remaining;
+        boolean failed = false;
+        boolean stale = false;
+        
+        ShardLoad(int shards) {
+            remaining = shards;
+        }
+        
+        /**
+         * Add one shard's entries; returns true for the last shard. A key found in more than
+         * one shard (after the shard count changed) keeps its newest value.
+         */
+        synchronized boolean add(Map<String, Object> data, Map<String, Long> times, boolean current) {
+            for (Map.Entry<String, Object> entry : data.entrySet()) {
+                String key = entry.getKey();
+                Long time = times.get(key);
+                Long existing = timestamps.get(key);
+                if (existing == null || (time != null && time > existing)) {
+                    values.put(key, entry.getValue());
+                    timestamps.put(key, time != null ? time : 0L);
+                }
+            }
+            if (!current) {
+                stale = true;
+            }
+            return --remaining == 0;
+        }
+        
+        synchronized boolean fail() {
+            failed = true;
+            return --remaining == 0;
+        }
+    }
+    
+    /**
+     * Read data from a snapshot
+     */
+    private void readSnapshotData(Snapshot snapshot, boolean quietIfUnchanged, long baseVersion) {
+        try {
+            HashMap<String, Long> cloudTimestamps = new HashMap<>();
+            Map<String, Object> cloudData;
+            SnapshotMetadata metadata;
+            try {
+                cloudData = decodeSnapshot(snapshot, cloudTimestamps);
+                metadata = snapshot.getMetadata();
+            } finally {
+                // Closed once read, as the shards are; an open snapshot makes the next open conflict
+                snapshots().discardAndClose(snapshot);
+            }
+            if (cloudData != null) {
+                applyCloudData(cloudData, cloudTimestamps, quietIfUnchanged, baseVersion);
+                recordFingerprint(metadata.getUniqueName(), fingerprintOf(metadata), true);
+                finishLoad();
             } else {
                 Log.w(TAG, "No data found in snapshot");
-                sendUnityCallback(false);
+                sendLoadFailedCallback(quietIfUnchanged);
             }
         } catch (IOException e) {
             Log.e(TAG, "Error reading snapshot data: " + e.getMessage());
-            sendUnityCallback(false);
+            sendLoadFailedCallback(quietIfUnchanged);
         } catch (Exception e) {
             Log.e(TAG, "Error processing snapshot data: " + e.getMessage());
-            sendUnityCallback(false);
+            postEvent(EZCloudEvents.EVENT_ERROR, EZCloudEvents.ERROR_DECODE_FAILED, 0);
+            sendLoadFailedCallback(quietIfUnchanged);
+        }
+    }
+    
+    /**
+     * Read and decode a snapshot (binary or legacy JSON). Returns null if the snapshot is empty.
+     */
+    private Map<String, Object> decodeSnapshot(Snapshot snapshot, Map<String, Long> timestampsOut)
+            throws IOException {
+        long readStart = System.nanoTime();
+        byte[] data = snapshot.getSnapshotContents().readFully();
+        EZMetrics.recordSince(EZMetrics.HIST_READ_FULLY, readStart);
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        EZMetrics.add(EZMetrics.COUNT_BYTES_DOWN, data.length);
+        postEvent(EZCloudEvents.EVENT_BYTES_TRANSFERRED, EZCloudEvents.DIRECTION_DOWN, data.length);
+        
+        long startTime = System.nanoTime();
+        Map<String, Object> decoded = SnapshotCodec.decode(data, timestampsOut);
+        lastDecodeNanos = System.nanoTime() - startTime;
+        lastDecodedSize = data.length;
+        EZMetrics.recordMicros(EZMetrics.HIST_DECODE, lastDecodeNanos / 1000);
+        Log.d(TAG, "Decoded " + decoded.size() + " entries from " + data.length
+                + " bytes in " + (lastDecodeNanos / 1000) + "us");
+        return decoded;
+    }
+    
+    /**
+     * Read the shard manifest (empty if none was committed yet)
+     */
+    private Map<String, Object> readManifest(Snapshot manifestSnapshot) throws IOException {
+        byte[] data = manifestSnapshot.getSnapshotContents().readFully();
+        if (data == null || data.length == 0) {
+            return new HashMap<>();
+        }
+        return SnapshotCodec.decode(data, null);
+    }
+    
+    private static int manifestShardCount(Map<String, Object> manifest) {
+        Object count = manifest.get(MANIFEST_SHARDS_KEY);
+        return count instanceof Integer ? (Integer) count : 0;
+    }
+    
+    /**
+     * Apply downloaded data as a diff against local state: only added, changed and
+     * removed keys are written, in a single editor apply. Local unsynced changes are
+     * resolved against the cloud value by the key's merge rule (newest wins unless a rule
+     * is set) and, where they win, kept and uploaded again. Keys saved after
+     * the download began (version above baseVersion) are never overwritten. The diff is
+     * found without the lock; stateLock is only held to re-check and stage the keys
+     * that differ, and the store is written after it is released. With quietIfUnchanged, Unity is only notified if the diff was not empty.
+     */
+    private void applyCloudData(Map<String, Object> cloudData, Map<String, Long> cloudTimestamps,
+                                boolean quietIfUnchanged, long baseVersion) {
+        // Lock-free pass over the concurrent cache: keys gone from the cloud, keys with a
+        // different value, and keys with the same value but a different edit time
+        ArrayList<String> goneKeys = new ArrayList<>();
+        for (String key : localCache.keySet()) {
+            if (!cloudData.containsKey(key)) {
+                goneKeys.add(key);
+            }
+        }
+        HashMap<String, Object> differing = new HashMap<>();
+        ArrayList<String> retimed = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : cloudData.entrySet()) {
+            Object stored = toStoredValue(entry.getValue());
+            if (stored == null) {
+                continue;
+            }
+            if (!stored.equals(localCache.get(entry.getKey()))) {
+                differing.put(entry.getKey(), stored);
+            } else if (getKeyTimestamp(entry.getKey()) != cloudTimestamp(cloudTimestamps, entry.getKey())) {
+                retimed.add(entry.getKey());
+            }
+        }
+        
+        int added = 0;
+        int changed = 0;
+        int removed = 0;
+        int keptLocal = 0;
+        boolean flush;
+        
+        synchronized (stateLock) {
+            // Keys that no longer exist in the cloud
+            for (String key : goneKeys) {
+                if (dirtyKeys.contains(key) || changedSince(key, baseVersion) || !localCache.containsKey(key)) {
+                    continue;
+                }
+                stagedWrites.put(getGameSpecificKey(key), REMOVED);
+                cacheRemove(key);
+                keyTimestamps.remove(key);
+                encodedEntries.remove(key);
+                removed++;
+            }
+            
+            // Keys added or changed in the cloud
+            for (Map.Entry<String, Object> entry : differing.entrySet()) {
+                String key = entry.getKey();
+                Object stored = entry.getValue();
+                long cloudTimestamp = cloudTimestamp(cloudTimestamps, key);
+                if (changedSince(key, baseVersion)) {
+                    keptLocal++;
+                    continue;
+                }
+                
+                Object localValue = localCache.get(key);
+                if (stored.equals(localValue)) {
+                    continue;
+                }
+                if (dirtyKeys.contains(key) && hasEditTimes(key, cloudTimestamp)) {
+                    // An unsynced change is resolved by the key's merge rule, as in a conflict;
+                    // a local removal is kept if it is newer
+                    Object resolved = localValue != null
+                            ? merger.resolve(key, localValue, getKeyTimestamp(key), stored, cloudTimestamp)
+                            : getKeyTimestamp(key) >= cloudTimestamp ? null : stored;
+                    if (!stored.equals(resolved)) {
+                        if (resolved != null && !resolved.equals(localValue)) {
+                            // Combined from both sides (e.g. RULE_UNION): stored, and uploaded as still dirty
+                            stagedWrites.put(getGameSpecificKey(key), resolved);
+                            cachePut(key, resolved);
+                            keyTimestamps.put(key, Math.max(getKeyTimestamp(key), cloudTimestamp));
+                            changed++;
+                        }
+                        keptLocal++;
+                        continue;
+                    }
+                }
+                stagedWrites.put(getGameSpecificKey(key), stored);
+                cachePut(key, stored);
+                keyTimestamps.put(key, cloudTimestamp);
+                if (dirtyKeys.remove(key)) {
+                    onDirtyKeysChanged();
+                }
+                if (encodedEntriesValid) {
+                    encodedEntries.put(key, SnapshotCodec.encodeEntry(key, stored, cloudTimestamp));
+                }
+                if (localValue == null) {
+                    added++;
+                } else {
+                    changed++;
+                }
+            }
+            
+            // Unchanged values: the cloud already has any unsynced copy, take its edit time
+            for (String key : retimed) {
+                if (changedSince(key, baseVersion)) {
+                    continue;
+                }
+                if (dirtyKeys.remove(key)) {
+                    onDirtyKeysChanged();
+                }
+                keyTimestamps.put(key, cloudTimestamp(cloudTimestamps, key));
+                encodedEntries.remove(key);
+                encodedEntriesValid = false;
+            }
+            for (String key : new ArrayList<>(dirtyKeys)) {
+                Object stored = toStoredValue(cloudData.get(key));
+                if (stored != null && stored.equals(localCache.get(key)) && !changedSince(key, baseVersion)) {
+                    dirtyKeys.remove(key);
+                    onDirtyKeysChanged();
+                    // Cached entries are only refreshed for dirty keys, so bring this one up to date now
+                    if (encodedEntriesValid) {
+                        encodedEntries.put(key, SnapshotCodec.encodeEntry(key, stored, getKeyTimestamp(key)));
+                    }
+                }
+            }
+            flush = deferFlushInBatch();
+        }
+        if (flush) {
+            applyLocalWrites();
+        }
+        
+        Log.d(TAG, "Applied cloud data for " + getGameKeys().cloudSaveName + ": " + added + " added, " + changed
+                + " changed, " + removed + " removed, " + keptLocal + " newer local");
+        
+        if (keptLocal > 0) {
+            // The cloud has not seen these local changes yet
+            syncScheduler.request(false);
+        }
+        if (!quietIfUnchanged || added + changed + removed > 0) {
+            sendUnityCallback(true, added, changed, removed);
+        }
+    }
+    
+    /**
+     * Whether a key was saved locally after the given version was current.
+     * Must be called with stateLock held.
+     */
+    private boolean changedSince(String key, long baseVersion) {
+        Long version = keyVersions.get(key);
+        return version != null && version > baseVersion;
+    }
+    
+    /**
+     * Whether both the local and cloud copies of a key have an edit time to order them by.
+     * Legacy JSON snapshots and keys dirty from before edit times were tracked have none;
+     * for those the cloud wins, as it did on every load before edit times existed.
+     */
+    private boolean hasEditTimes(String key, long cloudTimestamp) {
+        return getKeyTimestamp(key) > 0 && cloudTimestamp > 0;
+    }
+    
+    private static long cloudTimestamp(Map<String, Long> cloudTimestamps, String key) {
+        Long time = cloudTimestamps.get(key);
+        return time != null ? time : 0L;
+    }
+    
+    /**
+     * Convert a cloud value to a type the local store supports.
+     * Returns null if the type is not supported.
+     */
+    private static Object toStoredValue(Object value) {
+        if (value instanceof String || value instanceof Boolean || value instanceof Integer
+                || value instanceof Long || value instanceof Float) {
+            return value;
+        } else if (value instanceof Double) {
+            // Legacy JSON snapshots only: store doubles as strings to preserve precision
+            return value.toString();
+        }
+        return null;
+    }
+    
+    /**
+     * Merge both sides of a conflict key by key, together with local unsynced changes
+     * (only those of the given shard, or all of them for shard -1)
+     */
+    private SnapshotMerger.Result mergeConflict(SnapshotsClient.SnapshotConflict conflict, int shard)
+            throws IOException {
+        EZMetrics.increment(EZMetrics.COUNT_CONFLICTS);
+        long readStart = System.nanoTime();
+        byte[] firstData = conflict.getSnapshot().getSnapshotContents().readFully();
+        byte[] secondData = conflict.getConflictingSnapshot().getSnapshotContents().readFully();
+        EZMetrics.recordSince(EZMetrics.HIST_READ_FULLY, readStart);
+        EZMetrics.add(EZMetrics.COUNT_BYTES_DOWN, firstData.length + secondData.length);
+        
+        HashMap<String, Long> firstTimes = new HashMap<>();
+        HashMap<String, Long> secondTimes = new HashMap<>();
+        Map<String, Object> first = SnapshotCodec.decode(firstData, firstTimes);
+        Map<String, Object> second = SnapshotCodec.decode(secondData, secondTimes);
+        first.remove(SHARD_GEN_KEY);
+        second.remove(SHARD_GEN_KEY);
+        SnapshotMerger.Result remote = merger.merge(first, firstTimes, second, secondTimes);
+        SnapshotMerger.Result merged = mergeLocalChanges(remote.values, remote.timestamps, shard);
+        Log.d(TAG, "Merged conflict " + conflict.getConflictId() + ": " + first.size() + " + " + second.size()
+                + " remote entries into " + merged.values.size());
+        return merged;
+    }
+    
+    /**
+     * Merge remote data key by key with local unsynced changes (only those of the given
+     * shard, or all of them for shard -1)
+     */
+    private SnapshotMerger.Result mergeLocalChanges(Map<String, Object> remoteValues, Map<String, Long> remoteTimes,
+                                                    int shard) {
+        // Local unsynced changes take part in the merge so they are not lost; dirty keys
+        // missing from the cache were removed locally and go in as removals. Keys that
+        // cannot be ordered against the cloud copy (see hasEditTimes) are left to the cloud.
+        HashMap<String, Object> localValues = new HashMap<>();
+        HashMap<String, Long> localTimes = new HashMap<>();
+        HashMap<String, Long> localRemoved = new HashMap<>();
+        synchronized (stateLock) {
+            for (String key : dirtyKeys) {
+                if (shard >= 0 && shardFor(key) != shard) {
+                    continue;
+                }
+                if (remoteValues.containsKey(key) && !hasEditTimes(key, cloudTimestamp(remoteTimes, key))) {
+                    continue;
+                }
+                Object value = localCache.get(key);
+                if (value != null) {
+                    localValues.put(key, value);
+                    localTimes.put(key, getKeyTimestamp(key));
+                } else {
+                    localRemoved.put(key, getKeyTimestamp(key));
+                }
+            }
+        }
+        
+        return merger.merge(localValues, localTimes, localRemoved, remoteValues, remoteTimes);
+    }
+    
+    /**
+     * Encode merged conflict data, tagged with the shard generation for sharded snapshots
+     */
+    private byte[] encodeMerged(SnapshotMerger.Result merged, int shard, long generation) {
+        if (shard < 0) {
+            return SnapshotCodec.encode(merged.values, merged.timestamps, compressSnapshots);
+        }
+        HashMap<String, Object> values = new HashMap<>(merged.values);
+        values.put(SHARD_GEN_KEY, generation);
+        return SnapshotCodec.encode(values, merged.timestamps, compressSnapshots);
+    }
+    
+    /**
+     * Resolve a conflict in one round trip by uploading the merged data as the resolution
+     */
+    private Task<SnapshotsClient.DataOrConflict<Snapshot>> resolveWithMerge(SnapshotsClient.SnapshotConflict conflict,
+                                                                            byte[] payload) {
+        SnapshotContents contents = conflict.getResolutionSnapshotContents();
+        contents.writeBytes(payload);
+        
+        SnapshotMetadataChange metadataChange = new SnapshotMetadataChange.Builder()
+            .setDescription("Merged at " + Calendar.getInstance().getTime().toString())
+            .setProgressValue(SnapshotCodec.fingerprint(payload))
+            .build();
+        
+        final long startTime = System.nanoTime();
+        return snapshots().resolveConflict(conflict.getConflictId(),
+                conflict.getSnapshot().getMetadata().getSnapshotId(), metadataChange, contents)
+            .addOnSuccessListener(listenerExecutor,
+                    result -> EZMetrics.recordSince(EZMetrics.HIST_RESOLVE_CONFLICT, startTime))
+            .addOnFailureListener(listenerExecutor, e -> EZMetrics.recordSince(EZMetrics.HIST_RESOLVE_CONFLICT, startTime));
+    }
+    
+    /**
+     * Apply merged values to local storage without removing local-only keys. Keys saved
+     * after the merge read local state (version above baseVersion) keep their new value.
+     */
+    private void applyMergedValues(SnapshotMerger.Result merged, long baseVersion) {
+        boolean flush;
+        synchronized (stateLock) {
+            for (Map.Entry<String, Object> entry : merged.values.entrySet()) {
+                String key = entry.getKey();
+                if (entry.getValue().equals(localCache.get(key)) || changedSince(key, baseVersion)) {
+                    continue;
+                }
+                Object stored = toStoredValue(entry.getValue());
+                if (stored != null) {
+                    stagedWrites.put(getGameSpecificKey(key), stored);
+                    cachePut(key, stored);
+                    keyTimestamps.put(key, cloudTimestamp(merged.timestamps, key));
+                }
+            }
+            for (String key : merged.removed) {
+                if (localCache.containsKey(key) && !changedSince(key, baseVersion)) {
+                    stagedWrites.put(getGameSpecificKey(key), REMOVED);
+                    cacheRemove(key);
+                }
+            }
+            encodedEntriesValid = false;
+            flush = deferFlushInBatch();
+        }
+        if (flush) {
+            applyLocalWrites();
         }
     }
     
     /**
      * Handle snapshot conflicts for loading
      */
-    private void handleConflictForLoad(SnapshotsClient.DataOrConflict<Snapshot> result) {
+    private void handleConflictForLoad(SnapshotsClient.DataOrConflict<Snapshot> result, final int attempt,
+                                       final int shard, final long generation, final SnapshotCallback callback) {
         try {
             SnapshotsClient.SnapshotConflict conflict = result.getConflict();
             if (conflict != null) {
-                Snapshot snapshot1 = conflict.getSnapshot();
-                Snapshot snapshot2 = conflict.getConflictingSnapshot();
-                
-                // Resolve conflict by selecting the newer one
-                long timestamp1 = snapshot1.getMetadata().getLastModifiedTimestamp();
-                long timestamp2 = snapshot2.getMetadata().getLastModifiedTimestamp();
-                
-                Snapshot resolvedSnapshot = (timestamp1 > timestamp2) ? snapshot1 : snapshot2;
-                
-                // Resolve the conflict
-                snapshotsClient.resolveConflict(conflict.getConflictId(), resolvedSnapshot)
-                    .addOnSuccessListener((Activity) ctx, newResult -> {
+                // Merge both snapshots key by key and resolve with the merged data
+                final SnapshotMerger.Result merged = mergeConflict(conflict, shard);
+                resolveWithMerge(conflict, encodeMerged(merged, shard, generation))
+                    .addOnSuccessListener(listenerExecutor, newResult -> {
                         // Process the resolved snapshot
                         if (newResult.isConflict()) {
-                            // If still conflict, give up after a few tries
-                            Log.e(TAG, "Unable to resolve conflict after attempt");
-                            sendUnityCallback(false);
+                            if (attempt < MAX_SNAPSHOT_RESOLVE_RETRIES) {
+                                // Another device wrote in between, merge again
+                                EZMetrics.increment(EZMetrics.COUNT_RETRIES);
+                                handleConflictForLoad(newResult, attempt + 1, shard, generation, callback);
+                            } else {
+                                Log.e(TAG, "Unable to resolve conflict after " + attempt + " attempts");
+                                postEvent(EZCloudEvents.EVENT_ERROR, EZCloudEvents.ERROR_RESOLVE_FAILED, attempt);
+                                callback.onFailure();
+                            }
                         } else {
                             // Successfully resolved
-                            readSnapshotData(newResult.getData());
+                            postEvent(EZCloudEvents.EVENT_CONFLICT_RESOLVED, attempt, merged.values.size());
+                            callback.onSnapshot(newResult.getData());
                         }
                     })
-                    .addOnFailureListener((Activity) ctx, e -> {
+                    .addOnFailureListener(listenerExecutor, e -> {
                         Log.e(TAG, "Failed to resolve conflict: " + e.getMessage());
-                        sendUnityCallback(false);
+                        postEvent(EZCloudEvents.EVENT_ERROR, EZCloudEvents.ERROR_RESOLVE_FAILED, attempt);
+                        callback.onFailure();
                     });
             } else {
                 Log.e(TAG, "Conflict marked but no conflict data found");
-                sendUnityCallback(false);
+                callback.onFailure();
             }
         } catch (Exception e) {
             Log.e(TAG, "Error handling snapshot conflict: " + e.getMessage());
-            sendUnityCallback(false);
+            callback.onFailure();
         }
     }
     
     /**
-     * Handle snapshot conflicts for saving
+     * Handle snapshot conflicts for saving. For a shard (shard >= 0), only that shard's
+     * local changes are merged and the result carries the given generation.
      */
-    private void handleSnapshotConflict(SnapshotsClient.DataOrConflict<Snapshot> result, JSONObject saveData) {
+    private void handleSnapshotConflict(SnapshotsClient.DataOrConflict<Snapshot> result, final int attempt,
+                                        final int shard, final long generation, final CommitCallback callback) {
         try {
             SnapshotsClient.SnapshotConflict conflict = result.getConflict();
             if (conflict != null) {
-                Snapshot snapshot1 = conflict.getSnapshot();
-                Snapshot snapshot2 = conflict.getConflictingSnapshot();
-                
-                // Resolve conflict by selecting the newer one
-                long timestamp1 = snapshot1.getMetadata().getLastModifiedTimestamp();
-                long timestamp2 = snapshot2.getMetadata().getLastModifiedTimestamp();
-                
-                Snapshot resolvedSnapshot = (timestamp1 > timestamp2) ? snapshot1 : snapshot2;
-                
-                // Resolve the conflict
-                snapshotsClient.resolveConflict(conflict.getConflictId(), resolvedSnapshot)
-                    .addOnSuccessListener((Activity) ctx, newResult -> {
+                // Merge both snapshots and our local changes key by key
+                final long baseVersion = versionCounter;
+                final SnapshotMerger.Result merged = mergeConflict(conflict, shard);
+                final byte[] payload = encodeMerged(merged, shard, generation);
+                resolveWithMerge(conflict, payload)
+                    .addOnSuccessListener(listenerExecutor, newResult -> {
                         // Process the resolved snapshot
                         if (newResult.isConflict()) {
-                            // If still conflict, give up after a few tries
-                            Log.e(TAG, "Unable to resolve conflict after attempt");
+                            if (attempt < MAX_SNAPSHOT_RESOLVE_RETRIES) {
+                                // Another device wrote in between, merge again
+                                EZMetrics.increment(EZMetrics.COUNT_RETRIES);
+                                handleSnapshotConflict(newResult, attempt + 1, shard, generation, callback);
+                            } else {
+                                Log.e(TAG, "Unable to resolve conflict after " + attempt + " attempts");
+                                postEvent(EZCloudEvents.EVENT_ERROR, EZCloudEvents.ERROR_RESOLVE_FAILED, attempt);
+                                callback.onCommitted(false);
+                            }
                         } else {
-                            // Successfully resolved
-                            writeSnapshotData(newResult.getData(), saveData);
+                            // Successfully resolved, keep local data in step with the merge
+                            postEvent(EZCloudEvents.EVENT_CONFLICT_RESOLVED, attempt, merged.values.size());
+                            applyMergedValues(merged, baseVersion);
+                            writeSnapshotData(newResult.getData(), payload, callback);
                         }
                     })
-                    .addOnFailureListener((Activity) ctx, e -> {
+                    .addOnFailureListener(listenerExecutor, e -> {
                         Log.e(TAG, "Failed to resolve conflict: " + e.getMessage());
+                        postEvent(EZCloudEvents.EVENT_ERROR, EZCloudEvents.ERROR_RESOLVE_FAILED, attempt);
+                        callback.onCommitted(false);
                     });
             } else {
                 Log.e(TAG, "Conflict marked but no conflict data found");
+                callback.onCommitted(false);
             }
         } catch (Exception e) {
             Log.e(TAG, "Error handling snapshot conflict: " + e.getMessage());
+            callback.onCommitted(false);
         }
     }
     
@@ -534,11 +2648,63 @@ public class EZCloud {
      * Send callback to Unity
      */
     private void sendUnityCallback(boolean success) {
-        if (!unityCallbackObject.isEmpty() && !unityCallbackMethod.isEmpty()) {
+        sendUnityCallback(success, 0, 0, 0);
+    }
+    
+    /**
+     * Report a failed cloud load, unless it was a background revalidation
+     */
+    private void sendLoadFailedCallback(boolean quietIfUnchanged) {
+        finishLoad();
+        if (quietIfUnchanged) {
+            EZMetrics.increment(EZMetrics.COUNT_LOAD_FAILURES);
+            return;
+        }
+        sendUnityCallback(false);
+    }
+    
+    /**
+     * Report a cloud load skipped because the remote data matched what this device last
+     * synced, unless it was a background revalidation
+     */
+    private void sendUnchangedCallback(boolean quietIfUnchanged) {
+        finishLoad();
+        if (!quietIfUnchanged) {
+            sendUnityCallback(true, 0, 0, 0, true);
+        }
+    }
+    
+    private void sendUnityCallback(boolean success, int added, int changed, int removed) {
+        sendUnityCallback(success, added, changed, removed, false);
+    }
+    
+    /**
+     * Send callback to Unity with the number of keys a cloud load added, changed and removed,
+     * and whether the download was skipped as unchanged. Uses the event buffer when enabled
+     * and UnitySendMessage otherwise.
+     */
+    private void sendUnityCallback(boolean success, int added, int changed, int removed, boolean unchanged) {
+        if (!success) {
+            EZMetrics.increment(EZMetrics.COUNT_LOAD_FAILURES);
+        }
+        
+        EZCloudEvents events = cloudEvents;
+        if (events != null) {
+            int code = unchanged ? EZCloudEvents.LOAD_UNCHANGED : success ? 1 : 0;
+            events.publish(EZCloudEvents.EVENT_LOAD_COMPLETE, code, added + changed + removed);
+            return;
+        }
+        
+        UnityTarget target = unityLoadTarget;
+        if (target.isSet()) {
             try {
                 JSONObject result = new JSONObject();
                 result.put("success", success);
-                UnityPlayer.UnitySendMessage(unityCallbackObject, unityCallbackMethod, result.toString());
+                result.put("added", added);
+                result.put("changed", changed);
+                result.put("removed", removed);
+                result.put("unchanged", unchanged);
+                UnityPlayer.UnitySendMessage(target.objectName, target.methodName, result.toString());
             } catch (Exception e) {
                 Log.e(TAG, "Error sending Unity callback: " + e.getMessage());
             }
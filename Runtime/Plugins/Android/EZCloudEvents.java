@@ -0,0 +1,119 @@
+package com.ethanzarov.cloud;
+
+import android.os.SystemClock;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Fixed-layout event ring buffer that Unity polls once per frame instead of
+ * receiving UnitySendMessage strings. The buffer is a direct ByteBuffer in
+ * native byte order; C# gets its address with AndroidJNI.GetDirectBufferAddress.
+ * Publishing an event writes into the buffer and allocates nothing.
+ *
+ * Header (32 bytes):
+ *   0  int  layout version
+ *   4  int  capacity (records)
+ *   8  int  record size (32)
+ *   16 long total events published
+ *
+ * The event with sequence s (1-based) lives at 32 + ((s - 1) % capacity) * 32:
+ *   0  long sequence (1-based; -1 while the record is being written)
+ *   8  int  event type (EVENT_*)
+ *   12 int  code (meaning depends on the type)
+ *   16 long value (meaning depends on the type)
+ *   24 long time (SystemClock.uptimeMillis)
+ *
+ * Readers keep their own next sequence number. A record is valid when its
+ * sequence matches before and after reading the fields. If the published
+ * count is more than capacity ahead of the reader, older events were
+ * overwritten and the reader should skip ahead.
+ *
+ * Write order: the record's sequence is set to -1, then the fields are
+ * written, then the record's sequence, then the published count, with a
+ * store fence before each of the last three stores. So a record sequence
+ * (or published count) is never visible before what it covers. Readers
+ * must read the published count and record sequences with acquire loads
+ * (Volatile.Read in C#).
+ */
+public final class EZCloudEvents {
+    public static final int LAYOUT_VERSION = 1;
+    public static final int HEADER_SIZE = 32;
+    public static final int RECORD_SIZE = 32;
+
+    /** Cloud load finished. code: 1 success, 0 failure, LOAD_UNCHANGED. value: keys added + changed + removed */
+    public static final int EVENT_LOAD_COMPLETE = 1;
+    /** Upload committed. value: keys committed */
+    public static final int EVENT_SYNC_COMMITTED = 2;
+    /** Conflict merged and resolved. code: attempts. value: merged entry count */
+    public static final int EVENT_CONFLICT_RESOLVED = 3;
+    /** Snapshot bytes moved. code: DIRECTION_*. value: byte count */
+    public static final int EVENT_BYTES_TRANSFERRED = 4;
+    /** Operation failed. code: ERROR_* */
+    public static final int EVENT_ERROR = 5;
+    /** Local data loaded after initializeAsync(). value: entry count */
+    public static final int EVENT_READY = 6;
+
+    public static final int DIRECTION_UP = 0;
+    public static final int DIRECTION_DOWN = 1;
+
+    /** EVENT_LOAD_COMPLETE code when the download was skipped because nothing changed */
+    public static final int LOAD_UNCHANGED = 2;
+
+    public static final int ERROR_CLOUD_UNAVAILABLE = 1;
+    public static final int ERROR_OPEN_FAILED = 2;
+    public static final int ERROR_COMMIT_FAILED = 3;
+    public static final int ERROR_RESOLVE_FAILED = 4;
+    public static final int ERROR_DECODE_FAILED = 5;
+
+    private static final int SEQUENCE_OFFSET = 16;
+
+    private final ByteBuffer buffer;
+    private final int capacity;
+    private long published = 0;
+    // Written and read back between stores: a volatile store followed by a volatile
+    // load keeps every earlier store ahead of every later one, on all API levels
+    private volatile long fence;
+
+    EZCloudEvents(int capacity) {
+        this.capacity = Math.max(16, capacity);
+        buffer = ByteBuffer.allocateDirect(HEADER_SIZE + this.capacity * RECORD_SIZE).order(ByteOrder.nativeOrder());
+        buffer.putInt(0, LAYOUT_VERSION);
+        buffer.putInt(4, this.capacity);
+        buffer.putInt(8, RECORD_SIZE);
+        buffer.putLong(SEQUENCE_OFFSET, 0L);
+    }
+
+    ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Append an event, overwriting the oldest one when the ring is full
+     */
+    synchronized void publish(int type, int code, long value) {
+        long sequence = published + 1;
+        int offset = HEADER_SIZE + (int) ((sequence - 1) % capacity) * RECORD_SIZE;
+
+        buffer.putLong(offset, -1L);
+        storeFence();
+        buffer.putInt(offset + 8, type);
+        buffer.putInt(offset + 12, code);
+        buffer.putLong(offset + 16, value);
+        buffer.putLong(offset + 24, SystemClock.uptimeMillis());
+        storeFence();
+        buffer.putLong(offset, sequence);
+
+        published = sequence;
+        storeFence();
+        buffer.putLong(SEQUENCE_OFFSET, sequence);
+    }
+
+    /**
+     * Order the buffer stores before this call ahead of those after it
+     */
+    private void storeFence() {
+        fence = published;
+        long ignored = fence;
+    }
+}
@@ -0,0 +1,286 @@
+import android.content.Context;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.VibrationEffect;
+import android.os.Vibrator;
+import android.os.VibratorManager;
+import android.util.Log;
+import com.ethanzarov.metrics.EZMetrics;
+
+/**
+ * Vibrator access for EZHaptics. The Vibrator and its capabilities are looked up
+ * once, transient effects are precomputed for a grid of quantized intensity and
+ * sharpness values, and taps landing in the same frame window are coalesced into
+ * the strongest one instead of stacking.
+ *
+ * Patterns are handed over in one call and played as a single waveform effect
+ * (API 26+) or, on older devices, pulse by pulse from a dedicated HandlerThread,
+ * so their timing does not depend on the game loop. Only one pattern plays at a
+ * time; starting a pattern or a tap interrupts the current one.
+ */
+class EZHapticEngine {
+    private static final String TAG = "EZHaptics";
+
+    static final int INTENSITY_STEPS = 16;
+    static final int SHARPNESS_STEPS = 8;
+    private static final long DEFAULT_FRAME_WINDOW_MS = 16;
+
+    private final Vibrator vibrator;
+    private final boolean hasVibrator;
+    private final boolean hasAmplitudeControl;
+
+    // Indexed by sharpness step * INTENSITY_STEPS + intensity step
+    private final VibrationEffect[] transientEffects;
+    private final long[] transientDurations = new long[SHARPNESS_STEPS];
+
+    private long frameWindowMs = DEFAULT_FRAME_WINDOW_MS;
+    private long windowStart = -1;
+    private int windowStrength = -1;
+
+    // Pattern playback; handle 0 means no pattern
+    private HandlerThread patternThread;
+    private Handler patternHandler;
+    private int nextPatternHandle = 1;
+    private int activePattern = 0;
+    private Object activePatternToken;
+    private long activePatternEnd = 0;
+
+    EZHapticEngine(Context ctx) {
+        vibrator = resolveVibrator(ctx);
+        hasVibrator = vibrator != null && vibrator.hasVibrator();
+        hasAmplitudeControl = hasVibrator && Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+                && vibrator.hasAmplitudeControl();
+
+        for (int s = 0; s < SHARPNESS_STEPS; s++) {
+            float sharpness = s / (float) (SHARPNESS_STEPS - 1);
+            transientDurations[s] = (long) (20 + 80 * sharpness);  // range ~20..100 ms
+        }
+
+        if (hasVibrator && Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            transientEffects = new VibrationEffect[SHARPNESS_STEPS * INTENSITY_STEPS];
+            for (int s = 0; s < SHARPNESS_STEPS; s++) {
+                for (int i = 0; i < INTENSITY_STEPS; i++) {
+                    transientEffects[s * INTENSITY_STEPS + i] =
+                            VibrationEffect.createOneShot(transientDurations[s], amplitudeFor(i));
+                }
+            }
+        } else {
+            transientEffects = null;
+        }
+
+        Log.d(TAG, "Haptics: vibrator=" + hasVibrator + ", amplitudeControl=" + hasAmplitudeControl
+                + ", sdk=" + Build.VERSION.SDK_INT);
+    }
+
+    private static Vibrator resolveVibrator(Context ctx) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            VibratorManager manager = (VibratorManager) ctx.getSystemService(Context.VIBRATOR_MANAGER_SERVICE);
+            if (manager != null) {
+                return manager.getDefaultVibrator();
+            }
+        }
+        return (Vibrator) ctx.getSystemService(Context.VIBRATOR_SERVICE);
+    }
+
+    boolean hasAmplitudeControl() {
+        return hasAmplitudeControl;
+    }
+
+    synchronized void setFrameWindowMs(long windowMs) {
+        frameWindowMs = Math.max(0, windowMs);
+    }
+
+    /**
+     * Play a short tap. Within one frame window only the first tap and any stronger
+     * ones replacing it reach the vibrator.
+     */
+    synchronized void playTransient(float intensity, float sharpness) {
+        if (!hasVibrator) {
+            Log.e(TAG, "No vibration service available.");
+            return;
+        }
+
+        int i = quantize(intensity, INTENSITY_STEPS);
+        int s = quantize(sharpness, SHARPNESS_STEPS);
+        int strength = i * SHARPNESS_STEPS + s;
+
+        long now = SystemClock.uptimeMillis();
+        if (windowStart >= 0 && now - windowStart < frameWindowMs) {
+            if (strength <= windowStrength) {
+                EZMetrics.increment(EZMetrics.COUNT_HAPTICS_COALESCED);
+                return;
+            }
+            // A stronger tap in the same frame replaces the running one
+        } else {
+            windowStart = now;
+        }
+        windowStrength = strength;
+        stopActivePattern();
+
+        if (transientEffects != null) {
+            vibrator.vibrate(transientEffects[s * INTENSITY_STEPS + i]);
+        } else {
+            vibrator.vibrate(transientDurations[s]);
+        }
+    }
+
+    /**
+     * Play a pattern of taps at times (ms from now, ascending) with per-tap intensity and
+     * sharpness. Returns a handle for cancelPattern/replacePattern, or 0 if the input is invalid.
+     */
+    synchronized int playPattern(long[] times, float[] intensities, float[] sharpness) {
+        int handle = nextPatternHandle++;
+        return startPattern(handle, times, intensities, sharpness) ? handle : 0;
+    }
+
+    /**
+     * Stop the pattern with this handle (if it is still playing) and play a new one in its place
+     */
+    synchronized int replacePattern(int handle, long[] times, float[] intensities, float[] sharpness) {
+        cancelPattern(handle);
+        return startPattern(handle, times, intensities, sharpness) ? handle : 0;
+    }
+
+    /**
+     * Stop the pattern with this handle. Returns false if it already finished or was replaced.
+     */
+    synchronized boolean cancelPattern(int handle) {
+        if (handle == 0 || handle != activePattern) {
+            return false;
+        }
+        boolean playing = SystemClock.uptimeMillis() < activePatternEnd;
+        stopActivePattern();
+        return playing;
+    }
+
+    synchronized boolean isPatternPlaying(int handle) {
+        return handle != 0 && handle == activePattern && SystemClock.uptimeMillis() < activePatternEnd;
+    }
+
+    private boolean startPattern(int handle, long[] times, float[] intensities, float[] sharpness) {
+        if (!hasVibrator) {
+            Log.e(TAG, "No vibration service available.");
+            return false;
+        }
+        if (times == null || intensities == null || sharpness == null || times.length == 0
+                || times.length != intensities.length || times.length != sharpness.length) {
+            Log.e(TAG, "Haptic pattern needs equally long, non-empty time, intensity and sharpness arrays");
+            return false;
+        }
+        for (int p = 0; p < times.length; p++) {
+            if (times[p] < 0 || (p > 0 && times[p] < times[p - 1])) {
+                Log.e(TAG, "Haptic pattern times must be ascending and not negative");
+                return false;
+            }
+        }
+
+        stopActivePattern();
+        Object token = new Object();
+        long length;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            length = playWaveform(times, intensities, sharpness);
+        } else {
+            length = schedulePulses(token, times, sharpness);
+        }
+
+        activePattern = handle;
+        activePatternToken = token;
+        activePatternEnd = SystemClock.uptimeMillis() + length;
+        // A tap right after the pattern starts should not be coalesced against an old window
+        windowStart = -1;
+        return true;
+    }
+
+    /**
+     * Play the pattern as one waveform of alternating off/on segments. Each tap lasts
+     * as long as its sharpness implies, cut short where the next tap starts.
+     * Returns the total length in ms.
+     */
+    private long playWaveform(long[] times, float[] intensities, float[] sharpness) {
+        int n = times.length;
+        long[] timings = new long[n * 2];
+        int[] amplitudes = new int[n * 2];
+        long cursor = 0;
+        for (int p = 0; p < n; p++) {
+            long start = Math.max(times[p], cursor);
+            long duration = transientDurations[quantize(sharpness[p], SHARPNESS_STEPS)];
+            if (p + 1 < n) {
+                duration = Math.min(duration, Math.max(0, times[p + 1] - start));
+            }
+            timings[p * 2] = start - cursor;
+            amplitudes[p * 2] = 0;
+            timings[p * 2 + 1] = duration;
+            amplitudes[p * 2 + 1] = hasAmplitudeControl
+                    ? amplitudeFor(quantize(intensities[p], INTENSITY_STEPS)) : VibrationEffect.DEFAULT_AMPLITUDE;
+            cursor = start + duration;
+        }
+        vibrator.vibrate(VibrationEffect.createWaveform(timings, amplitudes, -1));
+        return cursor;
+    }
+
+    /**
+     * Schedule each tap on the pattern thread (devices without VibrationEffect).
+     * Returns the total length in ms.
+     */
+    private long schedulePulses(Object token, long[] times, float[] sharpness) {
+        Handler handler = getPatternHandler();
+        long start = SystemClock.uptimeMillis();
+        long end = 0;
+        for (int p = 0; p < times.length; p++) {
+            final long duration = transientDurations[quantize(sharpness[p], SHARPNESS_STEPS)];
+            handler.postAtTime(() -> vibrator.vibrate(duration), token, start + times[p]);
+            end = Math.max(end, times[p] + duration);
+        }
+        return end;
+    }
+
+    private void stopActivePattern() {
+        if (activePattern == 0) {
+            return;
+        }
+        if (patternHandler != null) {
+            patternHandler.removeCallbacksAndMessages(activePatternToken);
+        }
+        if (SystemClock.uptimeMillis() < activePatternEnd) {
+            vibrator.cancel();
+        }
+        activePattern = 0;
+        activePatternToken = null;
+        activePatternEnd = 0;
+    }
+
+    /**
+     * Stop any pattern and end the pattern thread. The engine must not be used afterwards.
+     */
+    synchronized void release() {
+        stopActivePattern();
+        if (patternThread != null) {
+            patternThread.quitSafely();
+            patternThread = null;
+            patternHandler = null;
+        }
+    }
+
+    private Handler getPatternHandler() {
+        if (patternHandler == null) {
+            patternThread = new HandlerThread("EZHaptics-pattern", Process.THREAD_PRIORITY_DISPLAY);
+            patternThread.start();
+            patternHandler = new Handler(patternThread.getLooper());
+        }
+        return patternHandler;
+    }
+
+    static int quantize(float value, int steps) {
+        if (value < 0) value = 0;
+        if (value > 1) value = 1;
+        return Math.round(value * (steps - 1));
+    }
+
+    static int amplitudeFor(int intensityStep) {
+        int amplitude = Math.round(intensityStep * 255f / (INTENSITY_STEPS - 1));
+        return Math.max(1, amplitude);  // 0 amplitude = silent
+    }
+}
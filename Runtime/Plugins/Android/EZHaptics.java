@@ -7,34 +7,86 @@ import android.os.Vibrator;
 import android.util.Log;
 import android.view.HapticFeedbackConstants;
 import android.view.View;
+import com.ethanzarov.metrics.EZMetrics;
 
 class EZHaptics {
 
     public Context ctx;
     
+    private EZHapticEngine engine;
+    private Context engineContext;
+    
    public void playHapticTransient(float intensity, float sharpness) {
-        // 1) Get Vibrator service from the Android context
-        Vibrator vibrator = (Vibrator) ctx.getSystemService(Context.VIBRATOR_SERVICE);
-        if (vibrator == null) {
-            Log.e("EZHaptics", "No vibration service available.");
-            return;
-        }
+        long startTime = System.nanoTime();
+        EZMetrics.increment(EZMetrics.COUNT_HAPTIC_CALLS);
+        
+        getEngine().playTransient(intensity, sharpness);
+        EZMetrics.recordSince(EZMetrics.HIST_HAPTIC_CALL, startTime);
+    }
 
-        if (intensity < 0) intensity = 0;
-        if (intensity > 1) intensity = 1;
-        int amplitude = (int) (intensity * 255f);
-        if (amplitude < 1) amplitude = 1;  // 0 amplitude = silent
+    /**
+     * Play a whole haptic pattern in one call: tap i starts at timesMs[i] (ms from now,
+     * ascending) with intensities[i] and sharpness[i] in 0..1. Timing is handled by the
+     * system or a dedicated thread, not the game loop. Returns a handle, or 0 on invalid input.
+     */
+    public int playHapticPattern(long[] timesMs, float[] intensities, float[] sharpness) {
+        long startTime = System.nanoTime();
+        EZMetrics.increment(EZMetrics.COUNT_HAPTIC_CALLS);
+        
+        int handle = getEngine().playPattern(timesMs, intensities, sharpness);
+        EZMetrics.recordSince(EZMetrics.HIST_HAPTIC_CALL, startTime);
+        return handle;
+    }
 
-        if (sharpness < 0) sharpness = 0;
-        if (sharpness > 1) sharpness = 1;
-        long durationMs = (long) (20 + 80 * sharpness);  // range ~30..100 ms
+    /**
+     * Stop the pattern with this handle and play a new one under the same handle
+     */
+    public int replaceHapticPattern(int handle, long[] timesMs, float[] intensities, float[] sharpness) {
+        long startTime = System.nanoTime();
+        EZMetrics.increment(EZMetrics.COUNT_HAPTIC_CALLS);
+        
+        int newHandle = getEngine().replacePattern(handle, timesMs, intensities, sharpness);
+        EZMetrics.recordSince(EZMetrics.HIST_HAPTIC_CALL, startTime);
+        return newHandle;
+    }
+
+    /**
+     * Stop the pattern with this handle if it is still playing
+     */
+    public boolean cancelHapticPattern(int handle) {
+        return getEngine().cancelPattern(handle);
+    }
+
+    public boolean isHapticPatternPlaying(int handle) {
+        return getEngine().isPatternPlaying(handle);
+    }
+
+    /**
+     * Whether the device can vary vibration strength (otherwise intensity is ignored)
+     */
+    public boolean hasAmplitudeControl() {
+        return getEngine().hasAmplitudeControl();
+    }
+
+    /**
+     * Taps closer together than this are coalesced into the strongest one (default 16 ms, 0 = off)
+     */
+    public void setCoalesceWindowMs(long windowMs) {
+        getEngine().setFrameWindowMs(windowMs);
+    }
 
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            VibrationEffect effect = VibrationEffect.createOneShot(durationMs, amplitude);
-            vibrator.vibrate(effect);
-        } else {
-            vibrator.vibrate(durationMs);
+    /**
+     * The engine caches the Vibrator, so it is rebuilt only if ctx is replaced
+     */
+    private synchronized EZHapticEngine getEngine() {
+        if (engine == null || engineContext != ctx) {
+            if (engine != null) {
+                engine.release();
+            }
+            engine = new EZHapticEngine(ctx);
+            engineContext = ctx;
         }
+        return engine;
     }
 
-}
\ No newline at end of file
+}
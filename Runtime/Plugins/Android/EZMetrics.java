@@ -0,0 +1,241 @@
+package com.ethanzarov.metrics;
+
+import android.util.Log;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Low-overhead metrics shared by the Android plugins. Metrics are fixed int
+ * ids into atomic arrays, so recording one is a couple of atomic adds with
+ * no locks and no allocation.
+ *
+ * Latency histograms use 32 power-of-two buckets in microseconds (bucket i
+ * holds values below 2^i us). Percentiles are reported as bucket upper bounds.
+ *
+ * Unity polls snapshot(), a flat long[] laid out as getSnapshotLayout()
+ * names it: counters, then gauges, then count/sum/max/p50/p90/p99 for each
+ * histogram (times in microseconds).
+ */
+public final class EZMetrics {
+    private static final String TAG = "default";
+
+    // Latency histograms
+    public static final int HIST_SNAPSHOT_OPEN = 0;
+    public static final int HIST_SNAPSHOT_COMMIT = 1;
+    public static final int HIST_RESOLVE_CONFLICT = 2;
+    public static final int HIST_READ_FULLY = 3;
+    public static final int HIST_ENCODE = 4;
+    public static final int HIST_DECODE = 5;
+    public static final int HIST_LOCAL_FLUSH = 6;
+    public static final int HIST_HAPTIC_CALL = 7;
+    private static final String[] HIST_NAMES = {
+            "snapshotOpen", "snapshotCommit", "resolveConflict", "readFully",
+            "encode", "decode", "localFlush", "hapticCall"
+    };
+
+    // Counters
+    public static final int COUNT_BYTES_UP = 0;
+    public static final int COUNT_BYTES_DOWN = 1;
+    public static final int COUNT_CONFLICTS = 2;
+    public static final int COUNT_RETRIES = 3;
+    public static final int COUNT_LOCAL_FLUSHES = 4;
+    public static final int COUNT_HAPTIC_CALLS = 5;
+    public static final int COUNT_SYNC_FAILURES = 6;
+    public static final int COUNT_LOAD_FAILURES = 7;
+    public static final int COUNT_HAPTICS_COALESCED = 8;
+    public static final int COUNT_LOADS_SKIPPED = 9;
+    private static final String[] COUNT_NAMES = {
+            "bytesUp", "bytesDown", "conflicts", "retries",
+            "localFlushes", "hapticCalls", "syncFailures", "loadFailures",
+            "hapticsCoalesced", "loadsSkipped"
+    };
+
+    // Gauges, either set directly or sampled from a source when a snapshot is taken
+    public static final int GAUGE_CLOUD_QUEUE_DEPTH = 0;
+    public static final int GAUGE_DIRTY_KEYS = 1;
+    public static final int GAUGE_PENDING_WRITES = 2;
+    private static final String[] GAUGE_NAMES = {
+            "cloudQueueDepth", "dirtyKeys", "pendingWrites"
+    };
+
+    /**
+     * Supplies a gauge value when a snapshot is taken
+     */
+    public interface GaugeSource {
+        long sample();
+    }
+
+    private static final int BUCKETS = 32;
+    private static final int HIST_STATS = 6;
+
+    private static final AtomicLongArray counters = new AtomicLongArray(COUNT_NAMES.length);
+    private static final AtomicLongArray gauges = new AtomicLongArray(GAUGE_NAMES.length);
+    private static final AtomicReferenceArray<GaugeSource> gaugeSources = new AtomicReferenceArray<>(GAUGE_NAMES.length);
+    private static final AtomicLongArray buckets = new AtomicLongArray(HIST_NAMES.length * BUCKETS);
+    // count, sum and max per histogram
+    private static final AtomicLongArray histTotals = new AtomicLongArray(HIST_NAMES.length * 3);
+
+    private EZMetrics() {
+    }
+
+    public static void increment(int counter) {
+        counters.incrementAndGet(counter);
+    }
+
+    public static void add(int counter, long amount) {
+        counters.addAndGet(counter, amount);
+    }
+
+    public static void setGauge(int gauge, long value) {
+        gauges.set(gauge, value);
+    }
+
+    public static void setGaugeSource(int gauge, GaugeSource source) {
+        gaugeSources.set(gauge, source);
+    }
+
+    /**
+     * Record the time since startNanos (from System.nanoTime()) in a histogram
+     */
+    public static void recordSince(int histogram, long startNanos) {
+        recordMicros(histogram, (System.nanoTime() - startNanos) / 1000);
+    }
+
+    public static void recordMicros(int histogram, long micros) {
+        if (micros < 0) {
+            micros = 0;
+        }
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets.incrementAndGet(histogram * BUCKETS + bucket);
+
+        int base = histogram * 3;
+        histTotals.incrementAndGet(base);
+        histTotals.addAndGet(base + 1, micros);
+        long max = histTotals.get(base + 2);
+        while (micros > max && !histTotals.compareAndSet(base + 2, max, micros)) {
+            max = histTotals.get(base + 2);
+        }
+    }
+
+    /**
+     * Names of the values in snapshot(), in order
+     */
+    public static String[] getSnapshotLayout() {
+        String[] layout = new String[COUNT_NAMES.length + GAUGE_NAMES.length + HIST_NAMES.length * HIST_STATS];
+        int i = 0;
+        for (String name : COUNT_NAMES) {
+            layout[i++] = name;
+        }
+        for (String name : GAUGE_NAMES) {
+            layout[i++] = name;
+        }
+        for (String name : HIST_NAMES) {
+            layout[i++] = name + ".count";
+            layout[i++] = name + ".sumMicros";
+            layout[i++] = name + ".maxMicros";
+            layout[i++] = name + ".p50Micros";
+            layout[i++] = name + ".p90Micros";
+            layout[i++] = name + ".p99Micros";
+        }
+        return layout;
+    }
+
+    /**
+     * Current values as a flat array (see getSnapshotLayout())
+     */
+    public static long[] snapshot() {
+        long[] values = new long[COUNT_NAMES.length + GAUGE_NAMES.length + HIST_NAMES.length * HIST_STATS];
+        int i = 0;
+        for (int c = 0; c < COUNT_NAMES.length; c++) {
+            values[i++] = counters.get(c);
+        }
+        for (int g = 0; g < GAUGE_NAMES.length; g++) {
+            values[i++] = sampleGauge(g);
+        }
+        for (int h = 0; h < HIST_NAMES.length; h++) {
+            values[i++] = histTotals.get(h * 3);
+            values[i++] = histTotals.get(h * 3 + 1);
+            values[i++] = histTotals.get(h * 3 + 2);
+            values[i++] = percentile(h, 0.50);
+            values[i++] = percentile(h, 0.90);
+            values[i++] = percentile(h, 0.99);
+        }
+        return values;
+    }
+
+    /**
+     * Human-readable summary of every metric, also written to the log
+     */
+    public static String dump() {
+        StringBuilder out = new StringBuilder();
+        for (int c = 0; c < COUNT_NAMES.length; c++) {
+            out.append(COUNT_NAMES[c]).append('=').append(counters.get(c)).append('\n');
+        }
+        for (int g = 0; g < GAUGE_NAMES.length; g++) {
+            out.append(GAUGE_NAMES[g]).append('=').append(sampleGauge(g)).append('\n');
+        }
+        for (int h = 0; h < HIST_NAMES.length; h++) {
+            long count = histTotals.get(h * 3);
+            out.append(HIST_NAMES[h]).append(": n=").append(count);
+            if (count > 0) {
+                out.append(" avg=").append(histTotals.get(h * 3 + 1) / count).append("us")
+                        .append(" p50<=").append(percentile(h, 0.50)).append("us")
+                        .append(" p90<=").append(percentile(h, 0.90)).append("us")
+                        .append(" p99<=").append(percentile(h, 0.99)).append("us")
+                        .append(" max=").append(histTotals.get(h * 3 + 2)).append("us");
+            }
+            out.append('\n');
+        }
+        String text = out.toString();
+        Log.d(TAG, "Plugin metrics:\n" + text);
+        return text;
+    }
+
+    /**
+     * Clear counters and histograms (gauges keep their current values)
+     */
+    public static void reset() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+        for (int i = 0; i < histTotals.length(); i++) {
+            histTotals.set(i, 0);
+        }
+    }
+
+    private static long sampleGauge(int gauge) {
+        GaugeSource source = gaugeSources.get(gauge);
+        if (source != null) {
+            try {
+                return source.sample();
+            } catch (Exception e) {
+                Log.e(TAG, "Error sampling gauge " + GAUGE_NAMES[gauge] + ": " + e.getMessage());
+            }
+        }
+        return gauges.get(gauge);
+    }
+
+    private static long percentile(int histogram, double fraction) {
+        long total = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            total += buckets.get(histogram * BUCKETS + b);
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long target = (long) Math.ceil(total * fraction);
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += buckets.get(histogram * BUCKETS + b);
+            if (seen >= target) {
+                return b == 0 ? 0 : (1L << b) - 1;
+            }
+        }
+        return histTotals.get(histogram * 3 + 2);
+    }
+}
@@ -0,0 +1,325 @@
+package com.ethanzarov.words;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+/**
+ * Unity-facing word engine backed by a memory-mapped WordGraph, as a
+ * replacement for building PrefixTries from text assets on the managed heap.
+ * Mirrors WordDictionary/PrefixTrie: isWord, isStartOfWord, difficulty and
+ * template matching with '?' as the wildcard. The batch methods take and
+ * return arrays so a whole set of words costs a single JNI call.
+ *
+ * Anagram queries use a separate AnagramIndex file, which answers them with
+ * signature lookups instead of PrefixTrie's permutation search.
+ *
+ * Queries before a dictionary is open, or after it failed to open, answer
+ * as if the dictionary were empty.
+ */
+public class EZWords {
+    private static final String TAG = "default";
+
+    private volatile WordGraph graph;
+    private volatile AnagramIndex anagrams;
+
+    /**
+     * Map a dictionary built by WordGraphBuilder from the APK's assets (e.g. StreamingAssets).
+     * Stored (uncompressed) assets are mapped in place; compressed ones are copied to
+     * internal storage once per app install or update and mapped from there.
+     */
+    public boolean openAsset(Context context, String assetName) {
+        long startTime = System.nanoTime();
+        try {
+            graph = new WordGraph(loadAsset(context, assetName));
+            Log.d(TAG, "Opened dictionary " + assetName + " (" + graph.getWordCount() + " words) in "
+                    + ((System.nanoTime() - startTime) / 1000) + "us");
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Error opening dictionary " + assetName + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Map a dictionary file from a path on the device
+     */
+    public boolean openFile(String path) {
+        try {
+            graph = WordGraph.open(new File(path));
+            Log.d(TAG, "Opened dictionary " + path + " (" + graph.getWordCount() + " words)");
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Error opening dictionary " + path + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Map an anagram index built by AnagramIndexBuilder from the APK's assets (see openAsset)
+     */
+    public boolean openAnagramAsset(Context context, String assetName) {
+        long startTime = System.nanoTime();
+        try {
+            anagrams = new AnagramIndex(loadAsset(context, assetName));
+            Log.d(TAG, "Opened anagram index " + assetName + " (" + anagrams.getSignatureCount() + " signatures) in "
+                    + ((System.nanoTime() - startTime) / 1000) + "us");
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Error opening anagram index " + assetName + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    public boolean openAnagramFile(String path) {
+        try {
+            anagrams = AnagramIndex.open(new File(path));
+            Log.d(TAG, "Opened anagram index " + path + " (" + anagrams.getSignatureCount() + " signatures)");
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Error opening anagram index " + path + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    public boolean isOpen() {
+        return graph != null;
+    }
+
+    public int getWordCount() {
+        WordGraph current = graph;
+        return current != null ? current.getWordCount() : 0;
+    }
+
+    public boolean isWord(String word) {
+        WordGraph current = graph;
+        return current != null && word != null && current.isWord(word);
+    }
+
+    public boolean isStartOfWord(String letters) {
+        WordGraph current = graph;
+        return current != null && letters != null && current.isStartOfWord(letters);
+    }
+
+    /**
+     * 0 easy, 1 medium, 2 hard (PrefixTrieNode.WordDifficulty), or -1 if it is not a word
+     */
+    public int getWordDifficulty(String word) {
+        WordGraph current = graph;
+        return current != null && word != null ? current.getDifficulty(word) : -1;
+    }
+
+    /**
+     * Words fitting a template such as "?P??ES", alphabetically, at most limit of them (0 for all)
+     */
+    public String[] getWordsForTemplate(String template, int limit) {
+        WordGraph current = graph;
+        if (current == null || template == null) {
+            return new String[0];
+        }
+        ArrayList<String> matches = new ArrayList<>();
+        current.findMatches(template, limit, matches);
+        return matches.toArray(new String[0]);
+    }
+
+    public int countWordsForTemplate(String template) {
+        WordGraph current = graph;
+        return current != null && template != null ? current.countMatches(template) : 0;
+    }
+
+    /**
+     * First word fitting a template, like WordDictionary.GetBlankWord: the template itself
+     * when it has no wildcard, "" when nothing fits
+     */
+    public String getBlankWord(String template) {
+        if (template == null || template.indexOf(WordGraph.WILDCARD) < 0) {
+            return template;
+        }
+        String[] matches = getWordsForTemplate(template, 1);
+        return matches.length > 0 ? matches[0] : "";
+    }
+
+    // Anagrams (need openAnagramAsset or openAnagramFile)
+
+    /**
+     * Whether all of these letters, rearranged, spell a word
+     */
+    public boolean hasAnagram(String letters) {
+        AnagramIndex current = anagrams;
+        return current != null && letters != null && current.hasAnagram(letters);
+    }
+
+    /**
+     * Every word spelled by all of these letters, alphabetically
+     */
+    public String[] getAnagrams(String letters) {
+        AnagramIndex current = anagrams;
+        if (current == null || letters == null) {
+            return new String[0];
+        }
+        ArrayList<String> words = new ArrayList<>();
+        current.findAnagrams(letters, words);
+        return words.toArray(new String[0]);
+    }
+
+    /**
+     * Every word of at least minLength letters that can be spelled from some of these letters,
+     * shortest first
+     */
+    public String[] getSubAnagrams(String letters, int minLength) {
+        AnagramIndex current = anagrams;
+        if (current == null || letters == null) {
+            return new String[0];
+        }
+        ArrayList<String> words = new ArrayList<>();
+        current.findSubAnagrams(letters, minLength, words);
+        return words.toArray(new String[0]);
+    }
+
+    public int countSubAnagrams(String letters, int minLength) {
+        AnagramIndex current = anagrams;
+        return current != null && letters != null ? current.countSubAnagrams(letters, minLength) : 0;
+    }
+
+    /**
+     * Easiest anagram of these letters fitting a template such as "?P??ES", like
+     * WordDictionary.CheckForWordsMatchingAlphabeticalString. "" if none fits.
+     */
+    public String getAnagramForTemplate(String letters, String template) {
+        AnagramIndex current = anagrams;
+        if (current == null || letters == null || template == null) {
+            return "";
+        }
+        String word = current.findAnagramForTemplate(letters, template);
+        return word != null ? word : "";
+    }
+
+    // Batch queries, one JNI call for many words
+
+    public boolean[] areWords(String[] words) {
+        boolean[] results = new boolean[words.length];
+        WordGraph current = graph;
+        if (current != null) {
+            for (int i = 0; i < words.length; i++) {
+                results[i] = words[i] != null && current.isWord(words[i]);
+            }
+        }
+        return results;
+    }
+
+    public boolean[] areStartsOfWords(String[] letters) {
+        boolean[] results = new boolean[letters.length];
+        WordGraph current = graph;
+        if (current != null) {
+            for (int i = 0; i < letters.length; i++) {
+                results[i] = letters[i] != null && current.isStartOfWord(letters[i]);
+            }
+        }
+        return results;
+    }
+
+    public int[] getWordDifficulties(String[] words) {
+        int[] results = new int[words.length];
+        WordGraph current = graph;
+        for (int i = 0; i < words.length; i++) {
+            results[i] = current != null && words[i] != null ? current.getDifficulty(words[i]) : -1;
+        }
+        return results;
+    }
+
+    public boolean[] haveAnagrams(String[] racks) {
+        boolean[] results = new boolean[racks.length];
+        AnagramIndex current = anagrams;
+        if (current != null) {
+            for (int i = 0; i < racks.length; i++) {
+                results[i] = racks[i] != null && current.hasAnagram(racks[i]);
+            }
+        }
+        return results;
+    }
+
+    public int[] countWordsForTemplates(String[] templates) {
+        int[] results = new int[templates.length];
+        WordGraph current = graph;
+        if (current != null) {
+            for (int i = 0; i < templates.length; i++) {
+                results[i] = templates[i] != null ? current.countMatches(templates[i]) : 0;
+            }
+        }
+        return results;
+    }
+
+    private static ByteBuffer loadAsset(Context context, String assetName) throws IOException {
+        try {
+            return mapAsset(context, assetName);
+        } catch (FileNotFoundException e) {
+            return mapFile(extractAsset(context, assetName));
+        }
+    }
+
+    private static ByteBuffer mapAsset(Context context, String assetName) throws IOException {
+        // Throws FileNotFoundException when the asset is compressed
+        AssetFileDescriptor descriptor = context.getAssets().openFd(assetName);
+        try {
+            FileInputStream input = new FileInputStream(descriptor.getFileDescriptor());
+            FileChannel channel = input.getChannel();
+            return channel.map(FileChannel.MapMode.READ_ONLY, descriptor.getStartOffset(), descriptor.getDeclaredLength());
+        } finally {
+            descriptor.close();
+        }
+    }
+
+    private static ByteBuffer mapFile(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static File extractAsset(Context context, String assetName) throws IOException {
+        File target = new File(context.getFilesDir(), "ezwords_" + assetName.replace('/', '_'));
+        // Reuse the copy unless the app was updated since it was made
+        File apk = new File(context.getApplicationInfo().sourceDir);
+        if (target.exists() && target.lastModified() >= apk.lastModified()) {
+            return target;
+        }
+
+        File temp = new File(target.getPath() + ".tmp");
+        InputStream input = context.getAssets().open(assetName);
+        try {
+            FileOutputStream output = new FileOutputStream(temp);
+            try {
+                byte[] chunk = new byte[64 * 1024];
+                int read;
+                while ((read = input.read(chunk)) > 0) {
+                    output.write(chunk, 0, read);
+                }
+                output.getFD().sync();
+            } finally {
+                output.close();
+            }
+        } finally {
+            input.close();
+        }
+
+        if (!temp.renameTo(target)) {
+            throw new IOException("Could not extract " + assetName);
+        }
+        Log.d(TAG, "Extracted compressed dictionary asset " + assetName + " to " + target.getName());
+        return target;
+    }
+}
@@ -0,0 +1,157 @@
+package com.ethanzarov.cloud;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Primitive mirror of registered EZCloud keys, addressed by integer handle.
+ * Each slot holds a key's current value as 64 raw bits plus a type tag, so a
+ * read is an array access with no boxing, hashing or string work.
+ *
+ * Registration and updates happen under EZCloud's stateLock; reads are
+ * lock-free. A table that has to grow is copied and republished, and readers
+ * pick up the new one on their next call.
+ */
+final class KeySlots {
+    static final byte TYPE_NONE = 0;
+    static final byte TYPE_BOOL = 1;
+    static final byte TYPE_INT = 2;
+    static final byte TYPE_LONG = 3;
+    static final byte TYPE_FLOAT = 4;
+    // Strings are not mirrored; their slot only records that the key exists
+    static final byte TYPE_STRING = 5;
+
+    private static final int INITIAL_CAPACITY = 32;
+
+    private static final class Table {
+        final String[] keys;
+        final AtomicLongArray values;
+        final byte[] types;
+
+        Table(int capacity) {
+            keys = new String[capacity];
+            values = new AtomicLongArray(capacity);
+            types = new byte[capacity];
+        }
+    }
+
+    private volatile Table table = new Table(INITIAL_CAPACITY);
+    private int count = 0;
+    private final HashMap<String, Integer> handles = new HashMap<>();
+
+    /**
+     * Handle of a key, registering it with its current value if it is new
+     */
+    int register(String key, Object value) {
+        Integer handle = handles.get(key);
+        if (handle != null) {
+            return handle;
+        }
+
+        Table current = table;
+        if (count == current.keys.length) {
+            Table grown = new Table(count * 2);
+            System.arraycopy(current.keys, 0, grown.keys, 0, count);
+            System.arraycopy(current.types, 0, grown.types, 0, count);
+            for (int i = 0; i < count; i++) {
+                grown.values.set(i, current.values.get(i));
+            }
+            table = grown;
+            current = grown;
+        }
+        current.keys[count] = key;
+        write(current, count, value);
+        handles.put(key, count);
+        return count++;
+    }
+
+    /**
+     * Mirror a changed value (null when the key was removed), if the key is registered
+     */
+    void update(String key, Object value) {
+        Integer handle = handles.get(key);
+        if (handle != null) {
+            write(table, handle, value);
+        }
+    }
+
+    /**
+     * Re-read every registered key, after the whole cache was replaced
+     */
+    void reload(Map<String, Object> cache) {
+        Table current = table;
+        for (int i = 0; i < count; i++) {
+            write(current, i, cache.get(current.keys[i]));
+        }
+    }
+
+    /**
+     * Key a handle was registered for
+     */
+    String keyOf(int handle) {
+        Table current = table;
+        if (handle < 0 || handle >= current.keys.length || current.keys[handle] == null) {
+            throw new IllegalArgumentException("Unknown key handle " + handle);
+        }
+        return current.keys[handle];
+    }
+
+    boolean exists(int handle) {
+        return table.types[handle] != TYPE_NONE;
+    }
+
+    boolean getBool(int handle) {
+        return getLong(handle) != 0;
+    }
+
+    int getInt(int handle) {
+        return (int) getLong(handle);
+    }
+
+    long getLong(int handle) {
+        Table current = table;
+        // The value is written last, so reading it first sees a type at least as new
+        long bits = current.values.get(handle);
+        if (current.types[handle] == TYPE_FLOAT) {
+            return (long) Float.intBitsToFloat((int) bits);
+        }
+        return bits;
+    }
+
+    float getFloat(int handle) {
+        Table current = table;
+        long bits = current.values.get(handle);
+        if (current.types[handle] == TYPE_FLOAT) {
+            return Float.intBitsToFloat((int) bits);
+        }
+        return bits;
+    }
+
+    /**
+     * Store a value's bits and type. Type mismatches convert numerically, as getFloat
+     * on an int key returns the int as a float.
+     */
+    private static void write(Table target, int handle, Object value) {
+        byte type;
+        long bits;
+        if (value instanceof Boolean) {
+            type = TYPE_BOOL;
+            bits = (Boolean) value ? 1 : 0;
+        } else if (value instanceof Integer) {
+            type = TYPE_INT;
+            bits = (Integer) value;
+        } else if (value instanceof Long) {
+            type = TYPE_LONG;
+            bits = (Long) value;
+        } else if (value instanceof Float) {
+            type = TYPE_FLOAT;
+            bits = Float.floatToRawIntBits((Float) value);
+        } else {
+            type = value != null ? TYPE_STRING : TYPE_NONE;
+            bits = 0;
+        }
+        target.types[handle] = type;
+        target.values.set(handle, bits);
+    }
+}
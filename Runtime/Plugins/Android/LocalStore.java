@@ -0,0 +1,32 @@
+package com.ethanzarov.cloud;
+
+import java.util.Map;
+
+/**
+ * Persistent key/value storage behind EZCloud's in-memory mirror.
+ * Values are String, Boolean, Integer, Long or Float.
+ */
+interface LocalStore {
+    /**
+     * Read every stored entry. Called once when EZCloud initializes.
+     */
+    Map<String, Object> loadAll();
+
+    /**
+     * Start a set of changes that are written together by Editor.apply()
+     */
+    Editor edit();
+
+    /**
+     * Release files or other resources held by the store
+     */
+    void close();
+
+    interface Editor {
+        Editor put(String key, Object value);
+
+        Editor remove(String key);
+
+        void apply();
+    }
+}
@@ -0,0 +1,420 @@
+package com.ethanzarov.cloud;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only LocalStore on a memory-mapped file.
+ *
+ * File layout: magic "EZLG" and a format version int, then records of
+ * [payload length int][CRC32 of payload int][payload]. The payload is an op
+ * byte followed by an entry in SnapshotCodec's entry encoding (a remove
+ * record carries an empty string value). Writes cost the size of the changed
+ * entries rather than the whole file. On open, the log is replayed up to the
+ * first record whose length or checksum does not match, which drops a write
+ * torn by a crash. When dead records outgrow the live data the log is
+ * rewritten compactly to a temporary file and atomically renamed over it.
+ * Compaction runs on the given executor; appends only wait for it while the
+ * records written during the rewrite are copied over and the file is swapped.
+ */
+final class LogStore implements LocalStore {
+    private static final String TAG = "default";
+
+    private static final int MAGIC = 0x455A4C47; // "EZLG"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private static final byte OP_PUT = 1;
+    private static final byte OP_REMOVE = 2;
+
+    private static final int MIN_CAPACITY = 64 * 1024;
+    // Compact once the log is this many times larger than its live records
+    private static final int COMPACT_RATIO = 3;
+    private static final int MIN_COMPACT_SIZE = 256 * 1024;
+
+    private final File file;
+    private final Executor compactionExecutor;
+    private final HashMap<String, Object> live = new HashMap<>();
+    private final HashMap<String, Integer> liveRecordSizes = new HashMap<>();
+    private long liveBytes = 0;
+
+    private RandomAccessFile raf;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int writeOffset;
+    private boolean compactionScheduled = false;
+    private volatile long compactionCount = 0;
+
+    LogStore(File file, Executor compactionExecutor) throws IOException {
+        this.file = file;
+        this.compactionExecutor = compactionExecutor;
+        open();
+    }
+
+    /**
+     * Flush appended records to disk
+     */
+    synchronized void sync() throws IOException {
+        if (buffer == null) {
+            throw new IOException("Local log is closed");
+        }
+        buffer.force();
+    }
+
+    @Override
+    public synchronized Map<String, Object> loadAll() {
+        return new HashMap<>(live);
+    }
+
+    @Override
+    public Editor edit() {
+        return new LogEditor();
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            if (buffer != null) {
+                buffer.force();
+            }
+            if (channel != null) {
+                channel.close();
+            }
+            if (raf != null) {
+                raf.close();
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Error closing local log: " + e.getMessage());
+        }
+        // The mapping itself is released when it is garbage collected
+        buffer = null;
+        channel = null;
+        raf = null;
+    }
+
+    long getCompactionCount() {
+        return compactionCount;
+    }
+
+    private void open() throws IOException {
+        raf = new RandomAccessFile(file, "rw");
+        channel = raf.getChannel();
+
+        long length = raf.length();
+        map(Math.max(MIN_CAPACITY, roundUpToPowerOfTwo(length)));
+
+        if (length < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            if (length >= HEADER_SIZE) {
+                Log.w(TAG, "Local log " + file.getName() + " has no valid header, starting a new one");
+            }
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, FORMAT_VERSION);
+            writeOffset = HEADER_SIZE;
+            clearTail();
+            return;
+        }
+
+        if (buffer.getInt(4) > FORMAT_VERSION) {
+            throw new IOException("Unsupported local log version " + buffer.getInt(4));
+        }
+        replay();
+    }
+
+    private void map(long capacity) throws IOException {
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IOException("Local log too large");
+        }
+        // A replaced mapping is unmapped when it is garbage collected. There is no public
+        // API to unmap it sooner, and the mapping only grows or is replaced by compaction.
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        buffer.order(ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Rebuild live entries from the log, stopping at the first torn or corrupt record
+     */
+    private void replay() throws IOException {
+        CRC32 crc = new CRC32();
+        int offset = HEADER_SIZE;
+        int capacity = buffer.capacity();
+        int records = 0;
+
+        while (offset + RECORD_HEADER_SIZE <= capacity) {
+            int length = buffer.getInt(offset);
+            // Compared this way round so a corrupt length near Integer.MAX_VALUE cannot overflow
+            if (length <= 0 || length > capacity - offset - RECORD_HEADER_SIZE) {
+                break;
+            }
+
+            byte[] payload = new byte[length];
+            buffer.position(offset + RECORD_HEADER_SIZE);
+            buffer.get(payload);
+            crc.reset();
+            crc.update(payload, 0, length);
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                Log.w(TAG, "Dropping torn record at offset " + offset + " in " + file.getName());
+                break;
+            }
+
+            applyRecord(payload, RECORD_HEADER_SIZE + length);
+            offset += RECORD_HEADER_SIZE + length;
+            records++;
+        }
+
+        writeOffset = offset;
+        clearTail();
+        Log.d(TAG, "Replayed " + records + " records (" + live.size() + " live keys) from " + file.getName());
+    }
+
+    private void applyRecord(byte[] payload, int recordSize) throws IOException {
+        Map.Entry<String, Object> entry = SnapshotCodec.decodeEntry(payload, 1, payload.length - 1);
+        String key = entry.getKey();
+        Integer previousSize = liveRecordSizes.remove(key);
+        if (previousSize != null) {
+            liveBytes -= previousSize;
+        }
+
+        if (payload[0] == OP_PUT) {
+            live.put(key, entry.getValue());
+            liveRecordSizes.put(key, recordSize);
+            liveBytes += recordSize;
+        } else {
+            live.remove(key);
+        }
+    }
+
+    /**
+     * Zero the unused tail so leftovers of a torn write are never replayed
+     */
+    private void clearTail() {
+        for (int i = writeOffset; i < buffer.capacity(); i++) {
+            if (buffer.get(i) != 0) {
+                for (int j = i; j < buffer.capacity(); j++) {
+                    buffer.put(j, (byte) 0);
+                }
+                return;
+            }
+        }
+    }
+
+    private synchronized void append(ArrayList<byte[]> payloads) throws IOException {
+        int needed = 0;
+        for (byte[] payload : payloads) {
+            needed += RECORD_HEADER_SIZE + payload.length;
+        }
+        if (writeOffset + needed > buffer.capacity()) {
+            map(roundUpToPowerOfTwo((long) writeOffset + needed));
+        }
+
+        CRC32 crc = new CRC32();
+        for (byte[] payload : payloads) {
+            crc.reset();
+            crc.update(payload, 0, payload.length);
+            // Payload and checksum first, length last, so a partial record never replays
+            buffer.position(writeOffset + RECORD_HEADER_SIZE);
+            buffer.put(payload);
+            buffer.putInt(writeOffset + 4, (int) crc.getValue());
+            buffer.putInt(writeOffset, payload.length);
+
+            applyRecord(payload, RECORD_HEADER_SIZE + payload.length);
+            writeOffset += RECORD_HEADER_SIZE + payload.length;
+        }
+
+        if (needsCompaction() && !compactionScheduled) {
+            compactionScheduled = true;
+            compactionExecutor.execute(this::compactInBackground);
+        }
+    }
+
+    private boolean needsCompaction() {
+        return buffer != null && writeOffset > MIN_COMPACT_SIZE && writeOffset > liveBytes * COMPACT_RATIO;
+    }
+
+    private void compactInBackground() {
+        try {
+            compact();
+        } catch (IOException e) {
+            Log.e(TAG, "Error compacting local log: " + e.getMessage());
+        } finally {
+            synchronized (this) {
+                compactionScheduled = false;
+            }
+        }
+    }
+
+    /**
+     * Rewrite only live entries to a new file and swap it in. The live entries are written
+     * without the lock; records appended meanwhile are copied over as they are before the swap.
+     */
+    private void compact() throws IOException {
+        long startTime = System.nanoTime();
+        HashMap<String, Object> entries;
+        int copiedOffset;
+        synchronized (this) {
+            if (!needsCompaction()) {
+                return;
+            }
+            entries = new HashMap<>(live);
+            copiedOffset = writeOffset;
+        }
+
+        File tempFile = new File(file.getPath() + ".tmp");
+        HashMap<String, Integer> recordSizes = new HashMap<>();
+        long recordBytes = 0;
+        int length = HEADER_SIZE;
+        CRC32 crc = new CRC32();
+        FileOutputStream out = new FileOutputStream(tempFile);
+        try {
+            byte[] header = new byte[HEADER_SIZE];
+            writeInt(header, 0, MAGIC);
+            writeInt(header, 4, FORMAT_VERSION);
+            out.write(header);
+
+            byte[] recordHeader = new byte[RECORD_HEADER_SIZE];
+            for (Map.Entry<String, Object> entry : entries.entrySet()) {
+                byte[] payload = encodeRecord(OP_PUT, entry.getKey(), entry.getValue());
+                crc.reset();
+                crc.update(payload, 0, payload.length);
+                writeInt(recordHeader, 0, payload.length);
+                writeInt(recordHeader, 4, (int) crc.getValue());
+                out.write(recordHeader);
+                out.write(payload);
+                int recordSize = RECORD_HEADER_SIZE + payload.length;
+                recordSizes.put(entry.getKey(), recordSize);
+                recordBytes += recordSize;
+                length += recordSize;
+            }
+            out.getFD().sync();
+
+            synchronized (this) {
+                if (buffer == null) {
+                    return;
+                }
+                int before = writeOffset;
+                // Records appended during the rewrite, already applied to live
+                int tailLength = writeOffset - copiedOffset;
+                if (tailLength > 0) {
+                    byte[] tail = new byte[tailLength];
+                    buffer.position(copiedOffset);
+                    buffer.get(tail);
+                    out.write(tail);
+                    out.getFD().sync();
+                    for (int offset = 0; offset < tailLength; ) {
+                        int payloadLength = readInt(tail, offset);
+                        int recordSize = RECORD_HEADER_SIZE + payloadLength;
+                        String key = SnapshotCodec.decodeEntry(tail, offset + RECORD_HEADER_SIZE + 1,
+                                payloadLength - 1).getKey();
+                        Integer previousSize = recordSizes.remove(key);
+                        if (previousSize != null) {
+                            recordBytes -= previousSize;
+                        }
+                        if (tail[offset + RECORD_HEADER_SIZE] == OP_PUT) {
+                            recordSizes.put(key, recordSize);
+                            recordBytes += recordSize;
+                        }
+                        offset += recordSize;
+                    }
+                    length += tailLength;
+                }
+                out.close();
+
+                channel.close();
+                raf.close();
+                if (!tempFile.renameTo(file)) {
+                    // Keep appending to the old log
+                    raf = new RandomAccessFile(file, "rw");
+                    channel = raf.getChannel();
+                    throw new IOException("Could not replace " + file.getName() + " after compaction");
+                }
+
+                raf = new RandomAccessFile(file, "rw");
+                channel = raf.getChannel();
+                map(roundUpToPowerOfTwo(length));
+                writeOffset = length;
+                liveRecordSizes.clear();
+                liveRecordSizes.putAll(recordSizes);
+                liveBytes = recordBytes;
+                compactionCount++;
+                Log.d(TAG, "Compacted " + file.getName() + " from " + before + " to " + writeOffset + " bytes in "
+                        + ((System.nanoTime() - startTime) / 1000) + "us");
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private static byte[] encodeRecord(byte op, String key, Object value) {
+        byte[] entry = SnapshotCodec.encodeEntry(key, value, 0);
+        byte[] payload = new byte[entry.length + 1];
+        payload[0] = op;
+        System.arraycopy(entry, 0, payload, 1, entry.length);
+        return payload;
+    }
+
+    private static int readInt(byte[] source, int offset) {
+        return ((source[offset] & 0xFF) << 24) | ((source[offset + 1] & 0xFF) << 16)
+                | ((source[offset + 2] & 0xFF) << 8) | (source[offset + 3] & 0xFF);
+    }
+
+    private static void writeInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) (value >>> 24);
+        target[offset + 1] = (byte) (value >>> 16);
+        target[offset + 2] = (byte) (value >>> 8);
+        target[offset + 3] = (byte) value;
+    }
+
+    private static long roundUpToPowerOfTwo(long value) {
+        long capacity = MIN_CAPACITY;
+        while (capacity < value) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * Collects changes and appends them as records on apply()
+     */
+    private final class LogEditor implements Editor {
+        private final ArrayList<byte[]> pending = new ArrayList<>();
+
+        @Override
+        public Editor put(String key, Object value) {
+            if (value != null) {
+                pending.add(encodeRecord(OP_PUT, key, value));
+            }
+            return this;
+        }
+
+        @Override
+        public Editor remove(String key) {
+            pending.add(encodeRecord(OP_REMOVE, key, ""));
+            return this;
+        }
+
+        @Override
+        public void apply() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            try {
+                append(pending);
+            } catch (IOException e) {
+                Log.e(TAG, "Error writing local log: " + e.getMessage());
+            }
+            pending.clear();
+        }
+    }
+}
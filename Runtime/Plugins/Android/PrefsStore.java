@@ -0,0 +1,59 @@
+package com.ethanzarov.cloud;
+
+import android.content.SharedPreferences;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * LocalStore backed by a SharedPreferences file (the default backend)
+ */
+final class PrefsStore implements LocalStore {
+    private final SharedPreferences prefs;
+
+    PrefsStore(SharedPreferences prefs) {
+        this.prefs = prefs;
+    }
+
+    @Override
+    public Map<String, Object> loadAll() {
+        return new HashMap<String, Object>(prefs.getAll());
+    }
+
+    @Override
+    public Editor edit() {
+        final SharedPreferences.Editor editor = prefs.edit();
+        return new Editor() {
+            @Override
+            public Editor put(String key, Object value) {
+                if (value instanceof String) {
+                    editor.putString(key, (String) value);
+                } else if (value instanceof Boolean) {
+                    editor.putBoolean(key, (Boolean) value);
+                } else if (value instanceof Integer) {
+                    editor.putInt(key, (Integer) value);
+                } else if (value instanceof Long) {
+                    editor.putLong(key, (Long) value);
+                } else if (value instanceof Float) {
+                    editor.putFloat(key, (Float) value);
+                }
+                return this;
+            }
+
+            @Override
+            public Editor remove(String key) {
+                editor.remove(key);
+                return this;
+            }
+
+            @Override
+            public void apply() {
+                editor.apply();
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,381 @@
+package com.ethanzarov.cloud;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Binary encoding for EZCloud snapshots.
+ *
+ * Layout: magic "EZCS", format version byte, flags byte, then the body
+ * (optionally deflated): varint entry count followed by the entries.
+ * Each entry is a varint-length UTF-8 key, a type byte, the value and
+ * (since version 2) a varint last-modified time in epoch milliseconds.
+ * Snapshots without the magic header are read as the legacy JSON format.
+ */
+final class SnapshotCodec {
+    static final int FORMAT_VERSION = 2;
+    private static final int FIRST_TIMESTAMPED_VERSION = 2;
+
+    private static final byte[] MAGIC = { 'E', 'Z', 'C', 'S' };
+    private static final int HEADER_SIZE = MAGIC.length + 2;
+    private static final int FLAG_DEFLATE = 1;
+
+    // Bodies smaller than this are not worth compressing
+    private static final int MIN_COMPRESS_SIZE = 256;
+
+    static final byte TYPE_STRING = 1;
+    static final byte TYPE_BOOL = 2;
+    static final byte TYPE_INT = 3;
+    static final byte TYPE_LONG = 4;
+    static final byte TYPE_FLOAT = 5;
+    static final byte TYPE_DOUBLE = 6;
+
+    private SnapshotCodec() {
+    }
+
+    /**
+     * Encode a single key/value entry. Encoded entries can be cached and
+     * passed to encode() so unchanged values are not re-serialized.
+     */
+    static byte[] encodeEntry(String key, Object value, long timestamp) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(key.length() + 16);
+        writeString(out, key);
+
+        if (value instanceof String) {
+            out.write(TYPE_STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Boolean) {
+            out.write(TYPE_BOOL);
+            out.write((Boolean) value ? 1 : 0);
+        } else if (value instanceof Integer) {
+            out.write(TYPE_INT);
+            writeVarLong(out, zigZag((Integer) value));
+        } else if (value instanceof Long) {
+            out.write(TYPE_LONG);
+            writeVarLong(out, zigZag((Long) value));
+        } else if (value instanceof Float) {
+            out.write(TYPE_FLOAT);
+            writeFixed(out, Float.floatToIntBits((Float) value), 4);
+        } else if (value instanceof Double) {
+            out.write(TYPE_DOUBLE);
+            writeFixed(out, Double.doubleToLongBits((Double) value), 8);
+        } else {
+            // Unknown types are stored by their string form
+            out.write(TYPE_STRING);
+            writeString(out, String.valueOf(value));
+        }
+        writeVarLong(out, Math.max(0, timestamp));
+        return out.toByteArray();
+    }
+
+    /**
+     * Encode a full snapshot from a map of values and their last-modified times.
+     * Keys missing from timestamps are written with time 0.
+     */
+    static byte[] encode(Map<String, ?> data, Map<String, Long> timestamps, boolean compress) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(data.size() * 24 + 8);
+        writeVarLong(body, data.size());
+        for (Map.Entry<String, ?> entry : data.entrySet()) {
+            Long timestamp = timestamps != null ? timestamps.get(entry.getKey()) : null;
+            byte[] encoded = encodeEntry(entry.getKey(), entry.getValue(), timestamp != null ? timestamp : 0L);
+            body.write(encoded, 0, encoded.length);
+        }
+        return wrapBody(body.toByteArray(), compress);
+    }
+
+    /**
+     * Encode a full snapshot from entries produced by encodeEntry()
+     */
+    static byte[] encode(Collection<byte[]> entries, boolean compress) {
+        int size = 8;
+        for (byte[] entry : entries) {
+            size += entry.length;
+        }
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream(size);
+        writeVarLong(body, entries.size());
+        for (byte[] entry : entries) {
+            body.write(entry, 0, entry.length);
+        }
+        return wrapBody(body.toByteArray(), compress);
+    }
+
+    /**
+     * Check whether data starts with the binary snapshot header
+     */
+    static boolean isBinary(byte[] data) {
+        if (data == null || data.length < HEADER_SIZE) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (data[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of encoded snapshot bytes, kept positive and non-zero so it
+     * can be stored as a snapshot's progress value
+     */
+    static long fingerprint(byte[] data) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : data) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        hash &= Long.MAX_VALUE;
+        return hash != 0 ? hash : 1;
+    }
+
+    /**
+     * Decode a snapshot into an ordered map of values. Accepts both the
+     * binary format and legacy JSON snapshots. If timestampsOut is not null,
+     * it receives each key's last-modified time (0 when the format has none).
+     */
+    static LinkedHashMap<String, Object> decode(byte[] data, Map<String, Long> timestampsOut) throws IOException {
+        if (!isBinary(data)) {
+            LinkedHashMap<String, Object> values = decodeLegacyJSON(data);
+            if (timestampsOut != null) {
+                for (String key : values.keySet()) {
+                    timestampsOut.put(key, 0L);
+                }
+            }
+            return values;
+        }
+
+        int version = data[MAGIC.length] & 0xFF;
+        if (version > FORMAT_VERSION) {
+            throw new IOException("Unsupported snapshot format version " + version);
+        }
+
+        int flags = data[MAGIC.length + 1] & 0xFF;
+        byte[] body;
+        if ((flags & FLAG_DEFLATE) != 0) {
+            body = inflate(data, HEADER_SIZE);
+        } else {
+            body = new byte[data.length - HEADER_SIZE];
+            System.arraycopy(data, HEADER_SIZE, body, 0, body.length);
+        }
+
+        boolean hasTimestamps = version >= FIRST_TIMESTAMPED_VERSION;
+        Reader reader = new Reader(body, 0, body.length);
+        long entryCount = reader.readVarLong();
+        // Every entry takes at least one byte, so a larger count is corrupt and must not size the map
+        if (entryCount < 0 || entryCount > reader.remaining()) {
+            throw new IOException("Snapshot entry count " + entryCount + " exceeds its " + reader.remaining() + " bytes");
+        }
+        int count = (int) entryCount;
+        LinkedHashMap<String, Object> values = new LinkedHashMap<>(Math.max(16, count * 4 / 3 + 1));
+        for (int i = 0; i < count; i++) {
+            String key = reader.readString();
+            values.put(key, reader.readValue());
+            long timestamp = hasTimestamps ? reader.readVarLong() : 0L;
+            if (timestampsOut != null) {
+                timestampsOut.put(key, timestamp);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Decode a single entry written by encodeEntry(), ignoring its timestamp
+     */
+    static Map.Entry<String, Object> decodeEntry(byte[] data, int offset, int length) throws IOException {
+        Reader reader = new Reader(data, offset, offset + length);
+        String key = reader.readString();
+        return new AbstractMap.SimpleImmutableEntry<>(key, reader.readValue());
+    }
+
+    private static LinkedHashMap<String, Object> decodeLegacyJSON(byte[] data) throws IOException {
+        LinkedHashMap<String, Object> values = new LinkedHashMap<>();
+        if (data == null || data.length == 0) {
+            return values;
+        }
+
+        try {
+            JSONObject json = new JSONObject(new String(data, StandardCharsets.UTF_8));
+            Iterator<String> keys = json.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                values.put(key, json.get(key));
+            }
+        } catch (JSONException e) {
+            throw new IOException("Snapshot is neither binary nor valid JSON: " + e.getMessage());
+        }
+        return values;
+    }
+
+    private static byte[] wrapBody(byte[] body, boolean compress) {
+        int flags = 0;
+        if (compress && body.length >= MIN_COMPRESS_SIZE) {
+            byte[] deflated = deflate(body);
+            if (deflated.length < body.length) {
+                body = deflated;
+                flags |= FLAG_DEFLATE;
+            }
+        }
+
+        byte[] out = new byte[HEADER_SIZE + body.length];
+        System.arraycopy(MAGIC, 0, out, 0, MAGIC.length);
+        out[MAGIC.length] = (byte) FORMAT_VERSION;
+        out[MAGIC.length + 1] = (byte) flags;
+        System.arraycopy(body, 0, out, HEADER_SIZE, body.length);
+        return out;
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 2 + 64);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] input, int offset) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input, offset, input.length - offset);
+            ByteArrayOutputStream out = new ByteArrayOutputStream((input.length - offset) * 3);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated compressed snapshot");
+                }
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt compressed snapshot: " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static void writeFixed(ByteArrayOutputStream out, long bits, int byteCount) {
+        for (int i = byteCount - 1; i >= 0; i--) {
+            out.write((int) (bits >>> (i * 8)));
+        }
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Sequential reader over a decoded body
+     */
+    private static final class Reader {
+        private final byte[] data;
+        private final int limit;
+        private int position;
+
+        Reader(byte[] data, int offset, int limit) {
+            this.data = data;
+            this.position = offset;
+            this.limit = limit;
+        }
+
+        long readVarLong() throws IOException {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IOException("Malformed varint in snapshot");
+        }
+
+        int remaining() {
+            return limit - position;
+        }
+
+        long readFixed(int byteCount) throws IOException {
+            long bits = 0;
+            for (int i = 0; i < byteCount; i++) {
+                bits = (bits << 8) | readByte();
+            }
+            return bits;
+        }
+
+        String readString() throws IOException {
+            int length = (int) readVarLong();
+            if (length < 0 || position + length > limit) {
+                throw new IOException("Truncated string in snapshot");
+            }
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        Object readValue() throws IOException {
+            int type = readByte();
+            switch (type) {
+                case TYPE_STRING:
+                    return readString();
+                case TYPE_BOOL:
+                    return readByte() != 0;
+                case TYPE_INT:
+                    return (int) unZigZag(readVarLong());
+                case TYPE_LONG:
+                    return unZigZag(readVarLong());
+                case TYPE_FLOAT:
+                    return Float.intBitsToFloat((int) readFixed(4));
+                case TYPE_DOUBLE:
+                    return Double.longBitsToDouble(readFixed(8));
+                default:
+                    throw new IOException("Unknown value type " + type + " in snapshot");
+            }
+        }
+
+        private int readByte() throws IOException {
+            if (position >= limit) {
+                throw new IOException("Unexpected end of snapshot");
+            }
+            return data[position++] & 0xFF;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.ethanzarov.cloud;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * Key-by-key merge of two snapshot states, used to resolve EZCloud conflicts
+ * without discarding either side. Each key is resolved by the rule registered
+ * for the longest matching key prefix (last-writer-wins when none matches).
+ */
+public final class SnapshotMerger {
+    public static final int RULE_LAST_WRITER_WINS = 0;
+    public static final int RULE_MAX = 1;
+    public static final int RULE_UNION = 2;
+
+    /**
+     * Picks the merged value of a key present on both sides
+     */
+    public interface KeyResolver {
+        Object resolve(String key, Object first, long firstTime, Object second, long secondTime);
+    }
+
+    /**
+     * Merged values together with their last-modified times, and keys whose removal won
+     */
+    static final class Result {
+        final LinkedHashMap<String, Object> values = new LinkedHashMap<>();
+        final HashMap<String, Long> timestamps = new HashMap<>();
+        final HashSet<String> removed = new HashSet<>();
+    }
+
+    private static final KeyResolver LAST_WRITER_WINS = new KeyResolver() {
+        @Override
+        public Object resolve(String key, Object first, long firstTime, Object second, long secondTime) {
+            return secondTime > firstTime ? second : first;
+        }
+    };
+
+    private static final KeyResolver MAX = new KeyResolver() {
+        @Override
+        public Object resolve(String key, Object first, long firstTime, Object second, long secondTime) {
+            if (first instanceof Number && second instanceof Number && first.getClass() == second.getClass()) {
+                if (first instanceof Float || first instanceof Double) {
+                    return ((Number) second).doubleValue() > ((Number) first).doubleValue() ? second : first;
+                }
+                return ((Number) second).longValue() > ((Number) first).longValue() ? second : first;
+            }
+            return LAST_WRITER_WINS.resolve(key, first, firstTime, second, secondTime);
+        }
+    };
+
+    private static final KeyResolver UNION = new KeyResolver() {
+        @Override
+        public Object resolve(String key, Object first, long firstTime, Object second, long secondTime) {
+            if (first instanceof Boolean && second instanceof Boolean) {
+                return (Boolean) first || (Boolean) second;
+            }
+            if (first instanceof String && second instanceof String) {
+                // Comma-separated lists are merged as ordered sets
+                LinkedHashSet<String> items = new LinkedHashSet<>();
+                addListItems(items, (String) first);
+                addListItems(items, (String) second);
+                StringBuilder merged = new StringBuilder();
+                for (String item : items) {
+                    if (merged.length() > 0) {
+                        merged.append(',');
+                    }
+                    merged.append(item);
+                }
+                return merged.toString();
+            }
+            return LAST_WRITER_WINS.resolve(key, first, firstTime, second, secondTime);
+        }
+    };
+
+    private final ArrayList<String> rulePrefixes = new ArrayList<>();
+    private final ArrayList<KeyResolver> ruleResolvers = new ArrayList<>();
+
+    /**
+     * Use one of the built-in RULE_ constants for keys starting with keyPrefix
+     */
+    public synchronized void setRule(String keyPrefix, int rule) {
+        switch (rule) {
+            case RULE_MAX:
+                setResolver(keyPrefix, MAX);
+                break;
+            case RULE_UNION:
+                setResolver(keyPrefix, UNION);
+                break;
+            default:
+                setResolver(keyPrefix, LAST_WRITER_WINS);
+                break;
+        }
+    }
+
+    /**
+     * Use a custom resolver for keys starting with keyPrefix ("" matches every key)
+     */
+    public synchronized void setResolver(String keyPrefix, KeyResolver resolver) {
+        int index = rulePrefixes.indexOf(keyPrefix);
+        if (index >= 0) {
+            ruleResolvers.set(index, resolver);
+        } else {
+            rulePrefixes.add(keyPrefix);
+            ruleResolvers.add(resolver);
+        }
+    }
+
+    /**
+     * Merge two states. Keys present on only one side are kept as-is. On a
+     * last-writer-wins tie the first state wins, so callers pass the state
+     * they prefer (usually local) first.
+     */
+    synchronized Result merge(Map<String, Object> firstValues, Map<String, Long> firstTimes,
+                              Map<String, Object> secondValues, Map<String, Long> secondTimes) {
+        return merge(firstValues, firstTimes, null, secondValues, secondTimes);
+    }
+
+    /**
+     * Merge two states where the first also removed some keys (key to removal time). A
+     * removal wins over a second value unless that value was written after it; removed
+     * keys are left out of the values and listed in Result.removed.
+     */
+    synchronized Result merge(Map<String, Object> firstValues, Map<String, Long> firstTimes,
+                              Map<String, Long> firstRemoved,
+                              Map<String, Object> secondValues, Map<String, Long> secondTimes) {
+        Result result = new Result();
+
+        if (firstRemoved != null) {
+            for (Map.Entry<String, Long> entry : firstRemoved.entrySet()) {
+                String key = entry.getKey();
+                if (!secondValues.containsKey(key) || timeOf(secondTimes, key) <= entry.getValue()) {
+                    result.removed.add(key);
+                }
+            }
+        }
+
+        for (Map.Entry<String, Object> entry : firstValues.entrySet()) {
+            String key = entry.getKey();
+            long firstTime = timeOf(firstTimes, key);
+            if (!secondValues.containsKey(key)) {
+                result.values.put(key, entry.getValue());
+                result.timestamps.put(key, firstTime);
+                continue;
+            }
+
+            long secondTime = timeOf(secondTimes, key);
+            Object merged = resolverFor(key).resolve(key, entry.getValue(), firstTime, secondValues.get(key), secondTime);
+            result.values.put(key, merged);
+            result.timestamps.put(key, Math.max(firstTime, secondTime));
+        }
+
+        for (Map.Entry<String, Object> entry : secondValues.entrySet()) {
+            if (!result.values.containsKey(entry.getKey()) && !result.removed.contains(entry.getKey())) {
+                result.values.put(entry.getKey(), entry.getValue());
+                result.timestamps.put(entry.getKey(), timeOf(secondTimes, entry.getKey()));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Resolve a single key present on both sides by the rule for its prefix
+     */
+    synchronized Object resolve(String key, Object first, long firstTime, Object second, long secondTime) {
+        return resolverFor(key).resolve(key, first, firstTime, second, secondTime);
+    }
+
+    private KeyResolver resolverFor(String key) {
+        KeyResolver best = LAST_WRITER_WINS;
+        int bestLength = -1;
+        for (int i = 0; i < rulePrefixes.size(); i++) {
+            String prefix = rulePrefixes.get(i);
+            if (prefix.length() > bestLength && key.startsWith(prefix)) {
+                best = ruleResolvers.get(i);
+                bestLength = prefix.length();
+            }
+        }
+        return best;
+    }
+
+    private static long timeOf(Map<String, Long> times, String key) {
+        Long time = times != null ? times.get(key) : null;
+        return time != null ? time : 0L;
+    }
+
+    private static void addListItems(LinkedHashSet<String> items, String list) {
+        if (list.isEmpty()) {
+            return;
+        }
+        for (String item : list.split(",")) {
+            items.add(item);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.ethanzarov.cloud;
+
+import android.os.SystemClock;
+import android.util.Log;
+import com.ethanzarov.metrics.EZMetrics;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when EZCloud uploads and downloads run. At most one sync or load is
+ * in flight, so a load never starts until the previous sync's commit callback
+ * has reported back, and the other way round. Sync requests made meanwhile
+ * collapse into a single trailing sync; loads queue in order and run before
+ * it. Uploads are spaced by a minimum interval, and failures back off
+ * exponentially with jitter.
+ *
+ * State is only written on the scheduler's executor thread. The counters are
+ * volatile so describe() can read them from any thread.
+ */
+final class SyncScheduler {
+    private static final String TAG = "default";
+
+    private static final long DEFAULT_DEBOUNCE_MS = 1000;
+    private static final long DEFAULT_MIN_INTERVAL_MS = 5000;
+    private static final long BASE_BACKOFF_MS = 2000;
+    private static final long MAX_BACKOFF_MS = 5 * 60 * 1000;
+    private static final int MAX_AUTO_RETRIES = 6;
+
+    private final ScheduledExecutorService executor;
+    private final Runnable syncTask;
+    private final Random jitter = new Random();
+
+    private long debounceMs = DEFAULT_DEBOUNCE_MS;
+    private long minIntervalMs = DEFAULT_MIN_INTERVAL_MS;
+
+    private volatile boolean syncInFlight = false;
+    private boolean loadInFlight = false;
+    private final ArrayDeque<Runnable> pendingLoads = new ArrayDeque<>();
+    private volatile boolean syncRequested = false;
+    private boolean flushRequested = false;
+    private ScheduledFuture<?> scheduledSync;
+    private long scheduledAt = 0;
+    private long lastSyncFinishedAt = -DEFAULT_MIN_INTERVAL_MS;
+    private long backoffUntil = 0;
+    private int consecutiveFailures = 0;
+
+    private volatile long requestCount = 0;
+    private volatile long syncCount = 0;
+    private volatile long failureCount = 0;
+
+    SyncScheduler(ScheduledExecutorService executor, Runnable syncTask) {
+        this.executor = executor;
+        this.syncTask = syncTask;
+    }
+
+    /**
+     * Ask for a sync. With immediate set, debounce, minimum interval and
+     * backoff are skipped (used when the app is pausing).
+     */
+    void request(final boolean immediate) {
+        executor.execute(() -> {
+            requestCount++;
+            syncRequested = true;
+            if (immediate) {
+                flushRequested = true;
+            }
+            scheduleNext();
+        });
+    }
+
+    /**
+     * Report the end of the sync started by the scheduler. Safe to call from any thread.
+     */
+    void onSyncFinished(final boolean success) {
+        executor.execute(() -> {
+            if (!syncInFlight) {
+                return;
+            }
+            syncInFlight = false;
+            lastSyncFinishedAt = SystemClock.elapsedRealtime();
+
+            if (success) {
+                consecutiveFailures = 0;
+                backoffUntil = 0;
+            } else {
+                failureCount++;
+                consecutiveFailures++;
+                EZMetrics.increment(EZMetrics.COUNT_SYNC_FAILURES);
+                backoffUntil = lastSyncFinishedAt + backoffDelay(consecutiveFailures);
+                if (consecutiveFailures <= MAX_AUTO_RETRIES) {
+                    // Changes are still dirty, so try again once the backoff expires
+                    syncRequested = true;
+                    EZMetrics.increment(EZMetrics.COUNT_RETRIES);
+                } else {
+                    Log.w(TAG, "Cloud sync failed " + consecutiveFailures + " times, waiting for the next request");
+                }
+            }
+
+            // Queued loads go first; the trailing sync is scheduled when they finish
+            boolean loadStarted = runNextLoad();
+            if (syncRequested && !loadStarted) {
+                scheduleNext();
+            }
+        });
+    }
+
+    /**
+     * Run a load once no sync or earlier load is in flight. The load must call
+     * onLoadFinished() exactly once when it completes.
+     */
+    void requestLoad(final Runnable load) {
+        executor.execute(() -> {
+            pendingLoads.add(load);
+            runNextLoad();
+        });
+    }
+
+    /**
+     * Report the end of the running load. Safe to call from any thread.
+     */
+    void onLoadFinished() {
+        executor.execute(() -> {
+            if (!loadInFlight) {
+                return;
+            }
+            loadInFlight = false;
+            if (!runNextLoad() && syncRequested) {
+                scheduleNext();
+            }
+        });
+    }
+
+    /**
+     * Start the next queued load if nothing is in flight; returns whether one is running
+     */
+    private boolean runNextLoad() {
+        if (syncInFlight || loadInFlight || pendingLoads.isEmpty()) {
+            return loadInFlight;
+        }
+        loadInFlight = true;
+        pendingLoads.poll().run();
+        return true;
+    }
+
+    void setPolicy(final long newDebounceMs, final long newMinIntervalMs) {
+        executor.execute(() -> {
+            debounceMs = Math.max(0, newDebounceMs);
+            minIntervalMs = Math.max(0, newMinIntervalMs);
+        });
+    }
+
+    /**
+     * Counters as a compact string: requested, synced, failed, coalesced
+     */
+    String describe() {
+        long coalesced = requestCount - syncCount - (syncRequested ? 1 : 0);
+        return "requested=" + requestCount + " synced=" + syncCount + " failed=" + failureCount
+                + " coalesced=" + Math.max(0, coalesced) + " inFlight=" + syncInFlight;
+    }
+
+    private void scheduleNext() {
+        if (syncInFlight || loadInFlight || !syncRequested) {
+            // A trailing sync is scheduled when the current sync or load finishes
+            return;
+        }
+
+        long now = SystemClock.elapsedRealtime();
+        long runAt;
+        if (flushRequested) {
+            runAt = now;
+        } else {
+            runAt = Math.max(now + debounceMs, lastSyncFinishedAt + minIntervalMs);
+            runAt = Math.max(runAt, backoffUntil);
+        }
+
+        if (scheduledSync != null) {
+            if (scheduledAt <= runAt) {
+                return;
+            }
+            // An earlier run was asked for (e.g. a flush), replace the pending one
+            scheduledSync.cancel(false);
+        }
+
+        scheduledAt = runAt;
+        scheduledSync = executor.schedule(this::runSync, Math.max(0, runAt - now), TimeUnit.MILLISECONDS);
+    }
+
+    private void runSync() {
+        scheduledSync = null;
+        if (syncInFlight || loadInFlight || !syncRequested) {
+            return;
+        }
+
+        syncRequested = false;
+        flushRequested = false;
+        syncInFlight = true;
+        syncCount++;
+        syncTask.run();
+    }
+
+    private long backoffDelay(int failures) {
+        long delay = BASE_BACKOFF_MS << Math.min(failures - 1, 16);
+        delay = Math.min(delay, MAX_BACKOFF_MS);
+        // Full jitter in the upper half so devices do not retry in lockstep
+        return delay / 2 + (long) (jitter.nextDouble() * (delay / 2));
+    }
+}
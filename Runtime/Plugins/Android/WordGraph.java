@@ -0,0 +1,261 @@
+package com.ethanzarov.words;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+/**
+ * Read-only word dictionary stored as a minimized DAWG (a trie whose shared
+ * suffixes are merged) in a file written by WordGraphBuilder. The file is
+ * memory-mapped and queried in place, so the dictionary costs no heap and
+ * loading it does no parsing. Lookups only use absolute reads and are safe
+ * from any thread.
+ *
+ * File layout (big-endian):
+ *   0  int magic "EZDW"
+ *   4  int format version
+ *   8  int node count
+ *   12 int edge count
+ *   16 int word count
+ *   20 int root node
+ *   24 int longest word length
+ *   28 int reserved
+ * then nodes of [first edge int][edge count | TERMINAL_FLAG int][words below int],
+ * then edges of [letter << LETTER_SHIFT | target node int], sorted by letter
+ * within a node, then two bits of difficulty per word.
+ *
+ * Words are numbered in alphabetical order; a word's number is the count of
+ * words passed on the way down, which indexes the difficulty table.
+ */
+public final class WordGraph {
+    static final int MAGIC = 0x455A4457; // "EZDW"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int NODE_SIZE = 12;
+    static final int TERMINAL_FLAG = 0x100;
+    static final int LETTER_SHIFT = 27;
+    private static final int TARGET_MASK = (1 << LETTER_SHIFT) - 1;
+
+    public static final char WILDCARD = '?';
+
+    // Same values as PrefixTrieNode.WordDifficulty
+    public static final int DIFFICULTY_EASY = 0;
+    public static final int DIFFICULTY_MEDIUM = 1;
+    public static final int DIFFICULTY_HARD = 2;
+
+    private final ByteBuffer buffer;
+    private final int nodeCount;
+    private final int wordCount;
+    private final int root;
+    private final int maxWordLength;
+    private final int edgesOffset;
+    private final int difficultiesOffset;
+
+    WordGraph(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer.order(ByteOrder.BIG_ENDIAN);
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a word graph file");
+        }
+        if (buffer.getInt(4) > FORMAT_VERSION) {
+            throw new IOException("Unsupported word graph version " + buffer.getInt(4));
+        }
+        nodeCount = buffer.getInt(8);
+        int edgeCount = buffer.getInt(12);
+        wordCount = buffer.getInt(16);
+        root = buffer.getInt(20);
+        maxWordLength = buffer.getInt(24);
+        edgesOffset = HEADER_SIZE + nodeCount * NODE_SIZE;
+        difficultiesOffset = edgesOffset + edgeCount * 4;
+        if (root < 0 || root >= nodeCount || (long) difficultiesOffset + (wordCount + 3) / 4 > buffer.capacity()) {
+            throw new IOException("Truncated word graph file");
+        }
+    }
+
+    /**
+     * Map a word graph file
+     */
+    public static WordGraph open(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            return new WordGraph(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            // The mapping stays valid after the file is closed
+            raf.close();
+        }
+    }
+
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    public int getMaxWordLength() {
+        return maxWordLength;
+    }
+
+    public boolean isWord(CharSequence word) {
+        return indexOf(word) >= 0;
+    }
+
+    /**
+     * Whether any word starts with these letters (an empty string is the start of every word)
+     */
+    public boolean isStartOfWord(CharSequence letters) {
+        int node = root;
+        for (int i = 0; i < letters.length() && node >= 0; i++) {
+            node = child(node, letterIndex(letters.charAt(i)));
+        }
+        return node >= 0;
+    }
+
+    /**
+     * DIFFICULTY_* of a word, or -1 if it is not a word
+     */
+    public int getDifficulty(CharSequence word) {
+        int index = indexOf(word);
+        if (index < 0) {
+            return -1;
+        }
+        return (buffer.get(difficultiesOffset + (index >> 2)) >> ((index & 3) * 2)) & 3;
+    }
+
+    /**
+     * Alphabetical number of a word, or -1 if it is not a word
+     */
+    public int indexOf(CharSequence word) {
+        int node = root;
+        int index = 0;
+        for (int i = 0; i < word.length(); i++) {
+            int letter = letterIndex(word.charAt(i));
+            if (letter < 0) {
+                return -1;
+            }
+
+            int info = buffer.getInt(nodeOffset(node) + 4);
+            if ((info & TERMINAL_FLAG) != 0) {
+                index++;
+            }
+            int edge = edgesOffset + buffer.getInt(nodeOffset(node)) * 4;
+            int end = edge + (info & 0xFF) * 4;
+            node = -1;
+            for (; edge < end; edge += 4) {
+                int value = buffer.getInt(edge);
+                int edgeLetter = value >>> LETTER_SHIFT;
+                if (edgeLetter == letter) {
+                    node = value & TARGET_MASK;
+                    break;
+                }
+                if (edgeLetter > letter) {
+                    break;
+                }
+                index += buffer.getInt(nodeOffset(value & TARGET_MASK) + 8);
+            }
+            if (node < 0) {
+                return -1;
+            }
+        }
+        return isTerminal(node) ? index : -1;
+    }
+
+    /**
+     * Add the words matching a template (letters, with WILDCARD for any letter) to output in
+     * alphabetical order, stopping after limit words (limit <= 0 for no limit). Returns the number added.
+     */
+    public int findMatches(CharSequence template, int limit, List<String> output) {
+        if (template.length() > maxWordLength) {
+            return 0;
+        }
+        return match(root, template, 0, new char[template.length()], limit <= 0 ? Integer.MAX_VALUE : limit, output);
+    }
+
+    /**
+     * Number of words matching a template
+     */
+    public int countMatches(CharSequence template) {
+        if (template.length() > maxWordLength) {
+            return 0;
+        }
+        return match(root, template, 0, null, Integer.MAX_VALUE, null);
+    }
+
+    private int match(int node, CharSequence template, int depth, char[] letters, int limit, List<String> output) {
+        if (depth == template.length()) {
+            if (!isTerminal(node)) {
+                return 0;
+            }
+            if (output != null) {
+                output.add(new String(letters));
+            }
+            return 1;
+        }
+
+        char c = template.charAt(depth);
+        if (c != WILDCARD) {
+            int letter = letterIndex(c);
+            int next = letter < 0 ? -1 : child(node, letter);
+            if (next < 0) {
+                return 0;
+            }
+            if (letters != null) {
+                letters[depth] = (char) ('A' + letter);
+            }
+            return match(next, template, depth + 1, letters, limit, output);
+        }
+
+        int found = 0;
+        int edge = edgesOffset + buffer.getInt(nodeOffset(node)) * 4;
+        int end = edge + (buffer.getInt(nodeOffset(node) + 4) & 0xFF) * 4;
+        for (; edge < end && found < limit; edge += 4) {
+            int value = buffer.getInt(edge);
+            if (letters != null) {
+                letters[depth] = (char) ('A' + (value >>> LETTER_SHIFT));
+            }
+            found += match(value & TARGET_MASK, template, depth + 1, letters, limit - found, output);
+        }
+        return found;
+    }
+
+    private int child(int node, int letter) {
+        if (letter < 0) {
+            return -1;
+        }
+        int edge = edgesOffset + buffer.getInt(nodeOffset(node)) * 4;
+        int end = edge + (buffer.getInt(nodeOffset(node) + 4) & 0xFF) * 4;
+        for (; edge < end; edge += 4) {
+            int value = buffer.getInt(edge);
+            int edgeLetter = value >>> LETTER_SHIFT;
+            if (edgeLetter == letter) {
+                return value & TARGET_MASK;
+            }
+            if (edgeLetter > letter) {
+                break;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isTerminal(int node) {
+        return (buffer.getInt(nodeOffset(node) + 4) & TERMINAL_FLAG) != 0;
+    }
+
+    private static int nodeOffset(int node) {
+        return HEADER_SIZE + node * NODE_SIZE;
+    }
+
+    /**
+     * 0..25 for A-Z in either case, -1 for anything else
+     */
+    static int letterIndex(char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A';
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a';
+        }
+        return -1;
+    }
+}
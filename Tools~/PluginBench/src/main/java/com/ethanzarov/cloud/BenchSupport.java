@@ -0,0 +1,78 @@
+package com.ethanzarov.cloud;
+
+import com.ethanzarov.fakes.FakeContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * Shared setup for the benchmarks: EZCloud instances on a fake context and generated save data
+ */
+final class BenchSupport {
+    static final String IDENTIFIER = "bench";
+
+    private BenchSupport() {
+    }
+
+    /**
+     * A local-only EZCloud (nobody is signed in) on a fresh files directory
+     */
+    static EZCloud newCloud(int storageBackend) throws IOException {
+        File filesDir = Files.createTempDirectory("ezcloud-bench").toFile();
+        filesDir.deleteOnExit();
+        EZCloud cloud = new EZCloud();
+        cloud.ctx = new FakeContext("com.ethanzarov.bench", filesDir);
+        cloud.setGameIdentifier(IDENTIFIER);
+        cloud.setStorageBackend(storageBackend);
+        cloud.initialize();
+        return cloud;
+    }
+
+    static String[] keys(int count) {
+        String[] keys = new String[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = "level" + (i % 97) + ".stat" + i;
+        }
+        return keys;
+    }
+
+    /**
+     * Save data of a typical mix: mostly ints, some floats, longs, bools and short strings
+     */
+    static HashMap<String, Object> values(String[] keys, long seed) {
+        Random random = new Random(seed);
+        HashMap<String, Object> values = new HashMap<>();
+        for (String key : keys) {
+            switch (random.nextInt(8)) {
+                case 0:
+                    values.put(key, random.nextFloat() * 1000);
+                    break;
+                case 1:
+                    values.put(key, random.nextLong());
+                    break;
+                case 2:
+                    values.put(key, random.nextBoolean());
+                    break;
+                case 3:
+                    values.put(key, "item" + random.nextInt(10000));
+                    break;
+                default:
+                    values.put(key, random.nextInt(100000));
+                    break;
+            }
+        }
+        return values;
+    }
+
+    static HashMap<String, Long> timestamps(String[] keys, long base, long seed) {
+        Random random = new Random(seed);
+        HashMap<String, Long> timestamps = new HashMap<>();
+        for (String key : keys) {
+            timestamps.put(key, base + random.nextInt(1000000));
+        }
+        return timestamps;
+    }
+}
@@ -0,0 +1,82 @@
+package com.ethanzarov.cloud;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The CPU side of resolving a snapshot conflict, as EZCloud.mergeConflict and
+ * encodeMerged do it: decode both versions, merge them, merge this device's unsynced
+ * keys on top, and encode the result for upload.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConflictResolutionBenchmark {
+    @Param({ "100", "1000", "10000", "100000" })
+    int keyCount;
+
+    // Percentage of keys the conflicting version changed, and of keys dirty on this device
+    @Param({ "10" })
+    int changedPercent;
+
+    private final SnapshotMerger merger = new SnapshotMerger();
+    private byte[] firstData;
+    private byte[] secondData;
+    private HashMap<String, Object> localValues;
+    private HashMap<String, Long> localTimes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String[] keys = BenchSupport.keys(keyCount);
+        long now = System.currentTimeMillis();
+        HashMap<String, Object> first = BenchSupport.values(keys, 1);
+        HashMap<String, Long> firstTimes = BenchSupport.timestamps(keys, now, 2);
+        HashMap<String, Object> second = new HashMap<>(first);
+        HashMap<String, Long> secondTimes = new HashMap<>(firstTimes);
+        HashMap<String, Object> changed = BenchSupport.values(keys, 3);
+        localValues = new HashMap<>();
+        localTimes = new HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            if (i % 100 < changedPercent) {
+                second.put(keys[i], changed.get(keys[i]));
+                secondTimes.put(keys[i], now + 2000000);
+            }
+            if ((i * 7) % 100 < changedPercent) {
+                localValues.put(keys[i], changed.get(keys[i]));
+                localTimes.put(keys[i], now + 1000000);
+            }
+        }
+        merger.setRule("level1.", SnapshotMerger.RULE_MAX);
+        firstData = SnapshotCodec.encode(first, firstTimes, true);
+        secondData = SnapshotCodec.encode(second, secondTimes, true);
+    }
+
+    @Benchmark
+    public byte[] resolve() throws IOException {
+        HashMap<String, Long> firstTimes = new HashMap<>();
+        HashMap<String, Long> secondTimes = new HashMap<>();
+        Map<String, Object> first = SnapshotCodec.decode(firstData, firstTimes);
+        Map<String, Object> second = SnapshotCodec.decode(secondData, secondTimes);
+        SnapshotMerger.Result remote = merger.merge(first, firstTimes, second, secondTimes);
+        SnapshotMerger.Result merged = merger.merge(localValues, localTimes, null, remote.values, remote.timestamps);
+        return SnapshotCodec.encode(merged.values, merged.timestamps, true);
+    }
+}
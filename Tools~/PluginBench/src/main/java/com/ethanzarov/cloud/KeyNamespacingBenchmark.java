@@ -0,0 +1,72 @@
+package com.ethanzarov.cloud;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning a game key into its stored, identifier-prefixed key: EZCloud's cached
+ * lookup against building the string every time
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class KeyNamespacingBenchmark {
+    private static final MethodHandle GAME_SPECIFIC_KEY = findGameSpecificKey();
+
+    @Param({ "100", "10000" })
+    int keyCount;
+
+    private EZCloud cloud;
+    private String[] keys;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        cloud = BenchSupport.newCloud(EZCloud.STORAGE_SHARED_PREFERENCES);
+        keys = BenchSupport.keys(keyCount);
+    }
+
+    @Benchmark
+    public String cachedStoredKey() throws Throwable {
+        return (String) GAME_SPECIFIC_KEY.invokeExact(cloud, nextKey());
+    }
+
+    @Benchmark
+    public String concatenatedKey() {
+        return BenchSupport.IDENTIFIER + "." + nextKey();
+    }
+
+    private String nextKey() {
+        String key = keys[next];
+        next = next + 1 == keys.length ? 0 : next + 1;
+        return key;
+    }
+
+    private static MethodHandle findGameSpecificKey() {
+        try {
+            Method method = EZCloud.class.getDeclaredMethod("getGameSpecificKey", String.class);
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.ethanzarov.cloud;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local save and load throughput by key name and by handle, on both storage backends
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LocalSaveLoadBenchmark {
+    private static final int BATCH_SIZE = 100;
+
+    @Param({ "prefs", "log" })
+    String backend;
+
+    @Param({ "100", "10000" })
+    int keyCount;
+
+    private EZCloud cloud;
+    private String[] keys;
+    private int[] handles;
+    private int[] batchHandles;
+    private int[] batchValues;
+    private int[] bulkOut;
+    private int next;
+    private int value;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        cloud = BenchSupport.newCloud("log".equals(backend) ? EZCloud.STORAGE_LOG : EZCloud.STORAGE_SHARED_PREFERENCES);
+        keys = BenchSupport.keys(keyCount);
+        handles = new int[keyCount];
+        cloud.beginBatch();
+        for (int i = 0; i < keyCount; i++) {
+            cloud.saveInt(keys[i], i);
+            handles[i] = cloud.registerKey(keys[i]);
+        }
+        cloud.commitBatch();
+        batchHandles = new int[BATCH_SIZE];
+        batchValues = new int[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batchHandles[i] = handles[i % keyCount];
+        }
+        bulkOut = new int[BATCH_SIZE];
+    }
+
+    @Benchmark
+    public void saveIntByName() {
+        cloud.saveInt(keys[nextIndex()], value++);
+    }
+
+    @Benchmark
+    public int loadIntByName() {
+        return cloud.loadInt(keys[nextIndex()]);
+    }
+
+    @Benchmark
+    public void setIntByHandle() {
+        cloud.setInt(handles[nextIndex()], value++);
+    }
+
+    @Benchmark
+    public int getIntByHandle() {
+        return cloud.getInt(handles[nextIndex()]);
+    }
+
+    /**
+     * BATCH_SIZE saves with one disk write
+     */
+    @Benchmark
+    public void setBulk() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batchValues[i] = value++;
+        }
+        cloud.setBulk(null, null, batchHandles, batchValues, null, null, null, null);
+    }
+
+    /**
+     * BATCH_SIZE reads into a reused array
+     */
+    @Benchmark
+    public int[] getBulk() {
+        cloud.getInts(batchHandles, bulkOut);
+        return bulkOut;
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = next + 1 == keys.length ? 0 : next + 1;
+        return index;
+    }
+}
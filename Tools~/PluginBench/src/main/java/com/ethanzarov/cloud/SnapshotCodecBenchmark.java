@@ -0,0 +1,60 @@
+package com.ethanzarov.cloud;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot serialization and deserialization from 100 to 100k keys, with and without deflate
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SnapshotCodecBenchmark {
+    @Param({ "100", "1000", "10000", "100000" })
+    int keyCount;
+
+    @Param({ "false", "true" })
+    boolean compress;
+
+    private HashMap<String, Object> values;
+    private HashMap<String, Long> timestamps;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String[] keys = BenchSupport.keys(keyCount);
+        values = BenchSupport.values(keys, 1);
+        timestamps = BenchSupport.timestamps(keys, System.currentTimeMillis(), 2);
+        encoded = SnapshotCodec.encode(values, timestamps, compress);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return SnapshotCodec.encode(values, timestamps, compress);
+    }
+
+    @Benchmark
+    public LinkedHashMap<String, Object> decode() throws IOException {
+        Map<String, Long> decodedTimes = new HashMap<>();
+        return SnapshotCodec.decode(encoded, decodedTimes);
+    }
+}
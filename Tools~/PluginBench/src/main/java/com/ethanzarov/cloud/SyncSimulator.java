@@ -0,0 +1,229 @@
+package com.ethanzarov.cloud;
+
+import com.ethanzarov.fakes.FakeContext;
+import com.ethanzarov.fakes.SimulatedSnapshotService;
+import com.ethanzarov.stubs.PlayServices;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Several devices signed in to one player, each running the real EZCloud sync, load
+ * and conflict code against a SimulatedSnapshotService. Each device edits its own keys
+ * and a shared high score (merged with RULE_MAX) while syncing with the default
+ * debounce; then every device flushes and loads in rounds until all of them and the
+ * server hold the same values.
+ *
+ *     java -cp target/benchmarks.jar com.ethanzarov.cloud.SyncSimulator [maxDevices] [editRounds] [failureRate]
+ *
+ * For 2 to maxDevices devices it reports the time to converge (up to the last call a
+ * device made) and the rounds it took, the calls that reached the server, bytes each
+ * way, and lost updates: edits missing from the converged save.
+ */
+public final class SyncSimulator {
+    static final String IDENTIFIER = "sim";
+    static final String CLOUD_SAVE_NAME = "EZCloud" + IDENTIFIER;
+    static final String SHARED_KEY = "best.score";
+    private static final int KEYS_PER_DEVICE = 20;
+    private static final int EDITS_PER_ROUND = 3;
+    private static final int MAX_CONVERGENCE_ROUNDS = 20;
+    private static final long MIN_LATENCY_MS = 5;
+    private static final long MAX_LATENCY_MS = 40;
+    // Quiet time that counts as idle; covers device-side work between calls, class loading included
+    private static final long SETTLE_MS = 200;
+    private static final long IDLE_TIMEOUT_MS = 60000;
+
+    private SyncSimulator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int maxDevices = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int editRounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        double failureRate = args.length > 2 ? Double.parseDouble(args[2]) : 0.05;
+
+        System.out.println("devices=2.." + maxDevices + " editRounds=" + editRounds + " failureRate=" + failureRate
+                + " latency=" + MIN_LATENCY_MS + ".." + MAX_LATENCY_MS + "ms");
+        System.out.println(String.format("%7s %9s %13s %6s %10s %9s %8s %10s %10s %8s",
+                "devices", "converged", "convergeMs", "rounds", "roundTrips", "conflicts", "failures",
+                "bytesUp", "bytesDown", "lost"));
+        for (int devices = 2; devices <= maxDevices; devices++) {
+            Result result = run(devices, editRounds, failureRate, devices);
+            System.out.println(String.format("%7d %9s %13d %6d %10d %9d %8d %10d %10d %8d",
+                    devices, result.converged, result.convergenceMs, result.rounds, result.roundTrips,
+                    result.conflicts, result.failures, result.bytesUp, result.bytesDown, result.lostUpdates));
+        }
+    }
+
+    /**
+     * Outcome of one simulated run
+     */
+    static final class Result {
+        boolean converged;
+        long convergenceMs;
+        int rounds;
+        long roundTrips;
+        long conflicts;
+        long failures;
+        long bytesUp;
+        long bytesDown;
+        int lostUpdates;
+    }
+
+    static Result run(int deviceCount, int editRounds, double failureRate, long seed) throws Exception {
+        SimulatedSnapshotService service = new SimulatedSnapshotService(seed, MIN_LATENCY_MS, MAX_LATENCY_MS);
+        PlayServices.setProvider(service.provider());
+        try {
+            ArrayList<EZCloud> devices = new ArrayList<>();
+            for (int i = 0; i < deviceCount; i++) {
+                devices.add(newDevice(service));
+            }
+            awaitIdle(service);
+
+            // Play: every device edits its own keys and the shared score, syncing as a game would
+            service.setFailureRate(failureRate);
+            Random random = new Random(seed);
+            HashMap<String, Integer> expected = new HashMap<>();
+            int bestScore = 0;
+            ArrayList<Integer> order = new ArrayList<>();
+            for (int i = 0; i < deviceCount; i++) {
+                order.add(i);
+            }
+            for (int round = 0; round < editRounds; round++) {
+                Collections.shuffle(order, random);
+                for (int i : order) {
+                    EZCloud device = devices.get(i);
+                    for (int edit = 0; edit < EDITS_PER_ROUND; edit++) {
+                        String key = ownKey(i, random.nextInt(KEYS_PER_DEVICE));
+                        int value = round * 1000 + random.nextInt(1000);
+                        device.saveInt(key, value);
+                        expected.put(key, value);
+                    }
+                    int score = random.nextInt(1000000);
+                    bestScore = Math.max(bestScore, score);
+                    if (score > device.loadInt(SHARED_KEY)) {
+                        device.saveInt(SHARED_KEY, score);
+                    }
+                    device.syncToCloud();
+                    if (random.nextInt(4) == 0) {
+                        // Resumed from the background
+                        device.loadFromCloud();
+                    }
+                    Thread.sleep(random.nextInt(10));
+                }
+            }
+            expected.put(SHARED_KEY, bestScore);
+
+            // Converge: flush everywhere, then load everywhere, until nothing differs
+            Result result = new Result();
+            long start = System.nanoTime();
+            while (!result.converged && result.rounds < MAX_CONVERGENCE_ROUNDS) {
+                result.rounds++;
+                for (EZCloud device : devices) {
+                    device.flushToCloud();
+                }
+                awaitIdle(service);
+                for (EZCloud device : devices) {
+                    device.loadFromCloud();
+                }
+                awaitIdle(service);
+                result.converged = converged(service, devices, expected.keySet());
+            }
+            // Up to the last call devices made, leaving out the idle waits
+            result.convergenceMs = Math.max(0, service.getLastActivityNanos() - start) / 1000000;
+
+            result.roundTrips = service.getRoundTrips();
+            result.conflicts = service.getConflicts();
+            result.failures = service.getFailuresInjected();
+            result.bytesUp = service.getBytesUp();
+            result.bytesDown = service.getBytesDown();
+            result.lostUpdates = lostUpdates(service, expected);
+            return result;
+        } finally {
+            service.setFailureRate(0);
+            PlayServices.setProvider(null);
+        }
+    }
+
+    /**
+     * A signed-in device with the simulator's merge rule and a fast sync policy
+     */
+    static EZCloud newDevice(SimulatedSnapshotService service) throws IOException {
+        File filesDir = Files.createTempDirectory("ezcloud-sim").toFile();
+        filesDir.deleteOnExit();
+        FakeContext context = new FakeContext("com.ethanzarov.sim", filesDir);
+        service.addDevice(context);
+        EZCloud cloud = new EZCloud();
+        cloud.ctx = context;
+        cloud.setGameIdentifier(IDENTIFIER);
+        cloud.setMergeRule("best.", SnapshotMerger.RULE_MAX);
+        cloud.setSyncPolicy(20, 50);
+        cloud.initialize();
+        return cloud;
+    }
+
+    static void awaitIdle(SimulatedSnapshotService service) throws InterruptedException {
+        if (!service.awaitIdle(SETTLE_MS, IDLE_TIMEOUT_MS)) {
+            throw new IllegalStateException("Simulated service still busy after " + IDLE_TIMEOUT_MS + "ms");
+        }
+    }
+
+    static String ownKey(int device, int index) {
+        return "d" + device + ".k" + index;
+    }
+
+    /**
+     * The server's save data, decoded (empty if nothing was committed)
+     */
+    static Map<String, Object> serverData(SimulatedSnapshotService service) throws IOException {
+        byte[] data = service.get(CLOUD_SAVE_NAME);
+        if (data == null || data.length == 0) {
+            return new HashMap<>();
+        }
+        return SnapshotCodec.decode(data, null);
+    }
+
+    /**
+     * Whether every device has synced everything and holds the server's values for all keys
+     */
+    static boolean converged(SimulatedSnapshotService service, ArrayList<EZCloud> devices,
+                             Iterable<String> keys) throws IOException {
+        if (service.hasPendingCommits()) {
+            return false;
+        }
+        Map<String, Object> server = serverData(service);
+        for (EZCloud device : devices) {
+            if (device.hasUnsyncedChanges()) {
+                return false;
+            }
+            for (String key : keys) {
+                Object value = server.get(key);
+                boolean exists = device.keyExists(key);
+                if (value == null ? exists : !exists || !value.equals(device.loadInt(key))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Edits missing from the server: own keys without their last written value, and a
+     * shared score below the best any device reached
+     */
+    static int lostUpdates(SimulatedSnapshotService service, Map<String, Integer> expected) throws IOException {
+        Map<String, Object> server = serverData(service);
+        int lost = 0;
+        for (Map.Entry<String, Integer> entry : expected.entrySet()) {
+            if (!entry.getValue().equals(server.get(entry.getKey()))) {
+                lost++;
+            }
+        }
+        return lost;
+    }
+}
@@ -0,0 +1,68 @@
+package com.ethanzarov.fakes;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.ApplicationInfo;
+import android.content.res.AssetManager;
+
+import java.io.File;
+import java.util.HashMap;
+
+/**
+ * Context for plugin code on a plain JVM: in-memory SharedPreferences that survive
+ * for the life of this object, a files directory, and an optional Vibrator.
+ */
+public class FakeContext extends Context {
+    private final String packageName;
+    private final File filesDir;
+    private final HashMap<String, FakePreferences> preferences = new HashMap<>();
+    private final HashMap<String, Object> services = new HashMap<>();
+
+    public FakeContext(String packageName, File filesDir) {
+        this.packageName = packageName;
+        this.filesDir = filesDir;
+        filesDir.mkdirs();
+    }
+
+    public FakeContext withService(String name, Object service) {
+        services.put(name, service);
+        return this;
+    }
+
+    @Override
+    public synchronized SharedPreferences getSharedPreferences(String name, int mode) {
+        FakePreferences prefs = preferences.get(name);
+        if (prefs == null) {
+            prefs = new FakePreferences();
+            preferences.put(name, prefs);
+        }
+        return prefs;
+    }
+
+    @Override
+    public String getPackageName() {
+        return packageName;
+    }
+
+    @Override
+    public File getFilesDir() {
+        return filesDir;
+    }
+
+    @Override
+    public Object getSystemService(String name) {
+        return services.get(name);
+    }
+
+    @Override
+    public AssetManager getAssets() {
+        throw new UnsupportedOperationException("No assets on the JVM");
+    }
+
+    @Override
+    public ApplicationInfo getApplicationInfo() {
+        ApplicationInfo info = new ApplicationInfo();
+        info.sourceDir = new File(filesDir, "base.apk").getPath();
+        return info;
+    }
+}
@@ -0,0 +1,56 @@
+package com.ethanzarov.fakes;
+
+import android.os.VibrationEffect;
+import android.os.Vibrator;
+
+/**
+ * Vibrator that counts what it is asked to play
+ */
+public class FakeVibrator extends Vibrator {
+    private final boolean amplitudeControl;
+    private volatile long effects = 0;
+    private volatile long pulses = 0;
+    private volatile long cancels = 0;
+
+    public FakeVibrator(boolean amplitudeControl) {
+        this.amplitudeControl = amplitudeControl;
+    }
+
+    public long getEffectCount() {
+        return effects;
+    }
+
+    public long getPulseCount() {
+        return pulses;
+    }
+
+    public long getCancelCount() {
+        return cancels;
+    }
+
+    @Override
+    public boolean hasVibrator() {
+        return true;
+    }
+
+    @Override
+    public boolean hasAmplitudeControl() {
+        return amplitudeControl;
+    }
+
+    @Override
+    public synchronized void vibrate(VibrationEffect effect) {
+        effects++;
+    }
+
+    @Override
+    @Deprecated
+    public synchronized void vibrate(long milliseconds) {
+        pulses++;
+    }
+
+    @Override
+    public synchronized void cancel() {
+        cancels++;
+    }
+}
@@ -0,0 +1,549 @@
+package com.ethanzarov.fakes;
+
+import android.content.Context;
+import com.ethanzarov.stubs.PlayServices;
+import com.google.android.gms.auth.api.signin.GoogleSignInAccount;
+import com.google.android.gms.games.AnnotatedData;
+import com.google.android.gms.games.SnapshotsClient;
+import com.google.android.gms.games.snapshot.Snapshot;
+import com.google.android.gms.games.snapshot.SnapshotContents;
+import com.google.android.gms.games.snapshot.SnapshotMetadata;
+import com.google.android.gms.games.snapshot.SnapshotMetadataBuffer;
+import com.google.android.gms.games.snapshot.SnapshotMetadataChange;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process saved-games service shared by several simulated devices signed in to the
+ * same player. Every call completes after a random latency and can be made to fail.
+ *
+ * Conflicts follow Play Games: a commit made from a snapshot the server has moved past
+ * is kept as that device's pending version instead of replacing the server's, and the
+ * device's next open of the snapshot returns both as a conflict (with MANUAL resolution)
+ * or picks the more recently modified one (any other policy). A resolution only lands
+ * if the server has not moved again; otherwise it becomes the pending version and the
+ * conflict is returned anew.
+ */
+public class SimulatedSnapshotService {
+    private final Object lock = new Object();
+    private final HashMap<String, Revision> server = new HashMap<>();
+    private final HashMap<Context, Device> devices = new HashMap<>();
+    private final HashMap<String, OpenConflict> conflicts = new HashMap<>();
+    private final ScheduledExecutorService network = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "SimulatedSnapshotService");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Random random;
+    private final long minLatencyMs;
+    private final long maxLatencyMs;
+    private volatile double failureRate = 0;
+
+    private int inFlight = 0;
+    private long lastActivityNanos = System.nanoTime();
+    private long nextRevision = 1;
+    private long nextConflictId = 1;
+
+    private final AtomicLong opens = new AtomicLong();
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong resolves = new AtomicLong();
+    private final AtomicLong metadataLoads = new AtomicLong();
+    private final AtomicLong conflictsReturned = new AtomicLong();
+    private final AtomicLong failuresInjected = new AtomicLong();
+    private final AtomicLong bytesUp = new AtomicLong();
+    private final AtomicLong bytesDown = new AtomicLong();
+
+    public SimulatedSnapshotService(long seed, long minLatencyMs, long maxLatencyMs) {
+        this.random = new Random(seed);
+        this.minLatencyMs = minLatencyMs;
+        this.maxLatencyMs = Math.max(minLatencyMs, maxLatencyMs);
+    }
+
+    /**
+     * Fraction of calls, from 0 to 1, that fail with an IOException instead of completing
+     */
+    public void setFailureRate(double rate) {
+        failureRate = rate;
+    }
+
+    /**
+     * Sign a device's context in to the shared player. Install the service with
+     * PlayServices.setProvider(service.provider()) before the device initializes.
+     */
+    public void addDevice(Context context) {
+        synchronized (lock) {
+            devices.put(context, new Device(devices.size()));
+        }
+    }
+
+    public PlayServices.Provider provider() {
+        return new PlayServices.Provider() {
+            @Override
+            public GoogleSignInAccount signedInAccount(Context context) {
+                synchronized (lock) {
+                    return devices.containsKey(context) ? new GoogleSignInAccount("player") : null;
+                }
+            }
+
+            @Override
+            public SnapshotsClient snapshotsClient(Context context, GoogleSignInAccount account) {
+                synchronized (lock) {
+                    Device device = devices.get(context);
+                    if (device == null) {
+                        throw new IllegalStateException("Context is not signed in to the simulated service");
+                    }
+                    return device.client;
+                }
+            }
+        };
+    }
+
+    /**
+     * Store a snapshot as if another device had committed it
+     */
+    public void put(String name, byte[] data) {
+        synchronized (lock) {
+            store(name, data, 0L);
+        }
+    }
+
+    /**
+     * The server's current data for a snapshot, or null if it was never committed
+     */
+    public byte[] get(String name) {
+        synchronized (lock) {
+            Revision revision = server.get(name);
+            return revision != null ? revision.data.clone() : null;
+        }
+    }
+
+    /**
+     * Whether any device holds a commit the server has not accepted yet
+     */
+    public boolean hasPendingCommits() {
+        synchronized (lock) {
+            for (Device device : devices.values()) {
+                if (!device.pending.isEmpty()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Wait until no call is in flight and none was made for settleMs, counted from no
+     * earlier than now so calls the devices are about to make are waited for. Returns
+     * false if that did not happen within timeoutMs.
+     */
+    public boolean awaitIdle(long settleMs, long timeoutMs) throws InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        long settleNanos = TimeUnit.MILLISECONDS.toNanos(settleMs);
+        synchronized (lock) {
+            while (true) {
+                long now = System.nanoTime();
+                long quietFor = now - Math.max(lastActivityNanos, start);
+                if (inFlight == 0 && quietFor >= settleNanos) {
+                    return true;
+                }
+                if (now >= deadline) {
+                    return false;
+                }
+                long waitNanos = inFlight > 0 ? settleNanos : settleNanos - quietFor;
+                long waitMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(Math.min(waitNanos, deadline - now)));
+                lock.wait(waitMs);
+            }
+        }
+    }
+
+    /**
+     * System.nanoTime() of the last call made or completed
+     */
+    public long getLastActivityNanos() {
+        synchronized (lock) {
+            return lastActivityNanos;
+        }
+    }
+
+    public long getOpens() {
+        return opens.get();
+    }
+
+    public long getCommits() {
+        return commits.get();
+    }
+
+    public long getResolves() {
+        return resolves.get();
+    }
+
+    public long getMetadataLoads() {
+        return metadataLoads.get();
+    }
+
+    /**
+     * Calls that reach the server: opens, commits, conflict resolutions and metadata loads
+     */
+    public long getRoundTrips() {
+        return opens.get() + commits.get() + resolves.get() + metadataLoads.get();
+    }
+
+    public long getConflicts() {
+        return conflictsReturned.get();
+    }
+
+    public long getFailuresInjected() {
+        return failuresInjected.get();
+    }
+
+    public long getBytesUp() {
+        return bytesUp.get();
+    }
+
+    public long getBytesDown() {
+        return bytesDown.get();
+    }
+
+    /**
+     * Counters as a compact string
+     */
+    public String describe() {
+        return "roundTrips=" + getRoundTrips() + " opens=" + opens.get() + " commits=" + commits.get()
+                + " resolves=" + resolves.get() + " metadataLoads=" + metadataLoads.get()
+                + " conflicts=" + conflictsReturned.get() + " failures=" + failuresInjected.get()
+                + " bytesUp=" + bytesUp.get() + " bytesDown=" + bytesDown.get();
+    }
+
+    /**
+     * Run a call on the network thread after a random latency. Must be called with lock held.
+     */
+    private <T> Task<T> respond(final Call<T> call) {
+        final TaskCompletionSource<T> source = new TaskCompletionSource<>();
+        long latency = minLatencyMs + (long) (random.nextDouble() * (maxLatencyMs - minLatencyMs));
+        final boolean fail = random.nextDouble() < failureRate;
+        inFlight++;
+        lastActivityNanos = System.nanoTime();
+        network.schedule(() -> {
+            T result = null;
+            Exception error = null;
+            synchronized (lock) {
+                if (fail) {
+                    failuresInjected.incrementAndGet();
+                    error = new IOException("Injected network failure");
+                } else {
+                    try {
+                        result = call.run();
+                    } catch (Exception e) {
+                        error = e;
+                    }
+                }
+            }
+            // Listeners are dispatched to the caller's executor, outside the lock
+            if (error != null) {
+                source.setException(error);
+            } else {
+                source.setResult(result);
+            }
+            synchronized (lock) {
+                inFlight--;
+                lastActivityNanos = System.nanoTime();
+                lock.notifyAll();
+            }
+        }, latency, TimeUnit.MILLISECONDS);
+        return source.getTask();
+    }
+
+    /**
+     * Work done by the server for one call, with lock held
+     */
+    private interface Call<T> {
+        T run() throws Exception;
+    }
+
+    /**
+     * Replace the server's data for a snapshot. Must be called with lock held.
+     */
+    private Revision store(String name, byte[] data, long progressValue) {
+        Revision previous = server.get(name);
+        String snapshotId = previous != null ? previous.snapshotId : "snapshot-" + name;
+        Revision revision = new Revision(name, snapshotId, nextRevision++, System.currentTimeMillis(),
+                progressValue, data.clone());
+        server.put(name, revision);
+        return revision;
+    }
+
+    private static long progressOf(SnapshotMetadataChange change) {
+        Long progress = change != null ? change.getProgressValue() : null;
+        return progress != null ? progress : 0L;
+    }
+
+    /**
+     * One committed version of a snapshot
+     */
+    private static final class Revision implements SnapshotMetadata {
+        final String name;
+        final String snapshotId;
+        final long number;
+        final long modified;
+        final long progressValue;
+        final byte[] data;
+
+        Revision(String name, String snapshotId, long number, long modified, long progressValue, byte[] data) {
+            this.name = name;
+            this.snapshotId = snapshotId;
+            this.number = number;
+            this.modified = modified;
+            this.progressValue = progressValue;
+            this.data = data;
+        }
+
+        @Override
+        public String getSnapshotId() {
+            return snapshotId;
+        }
+
+        @Override
+        public String getUniqueName() {
+            return name;
+        }
+
+        @Override
+        public String getDescription() {
+            return "revision " + number;
+        }
+
+        @Override
+        public long getLastModifiedTimestamp() {
+            return modified;
+        }
+
+        @Override
+        public long getProgressValue() {
+            return progressValue;
+        }
+    }
+
+    /**
+     * A snapshot handed to a device: the revision it was opened at and a writable copy
+     */
+    private final class OpenSnapshot implements Snapshot {
+        final Revision base;
+        final Contents contents;
+
+        OpenSnapshot(Revision base) {
+            this.base = base;
+            this.contents = new Contents(base.data);
+        }
+
+        @Override
+        public SnapshotMetadata getMetadata() {
+            return base;
+        }
+
+        @Override
+        public SnapshotContents getSnapshotContents() {
+            return contents;
+        }
+    }
+
+    private final class Contents implements SnapshotContents {
+        private byte[] data;
+
+        Contents(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public synchronized byte[] readFully() {
+            bytesDown.addAndGet(data.length);
+            return data.clone();
+        }
+
+        @Override
+        public synchronized boolean writeBytes(byte[] content) {
+            data = content.clone();
+            return true;
+        }
+
+        synchronized byte[] written() {
+            return data;
+        }
+    }
+
+    /**
+     * A conflict returned to a device, resolvable while the server stays at serverRevision
+     */
+    private static final class OpenConflict {
+        final Device device;
+        final String name;
+        final long serverRevision;
+
+        OpenConflict(Device device, String name, long serverRevision) {
+            this.device = device;
+            this.name = name;
+            this.serverRevision = serverRevision;
+        }
+    }
+
+    private final class Device {
+        final String id;
+        // Commits the server did not take because it had moved on, by snapshot name
+        final HashMap<String, Revision> pending = new HashMap<>();
+        final DeviceClient client = new DeviceClient(this);
+
+        Device(int index) {
+            this.id = "device" + index;
+        }
+
+        /**
+         * The current revision of a snapshot, created empty if asked. Must be called with lock held.
+         */
+        Revision current(String name, boolean createIfNotFound) throws IOException {
+            Revision revision = server.get(name);
+            if (revision == null) {
+                if (!createIfNotFound) {
+                    throw new IOException("Snapshot not found: " + name);
+                }
+                revision = new Revision(name, "snapshot-" + name, 0, 0, 0, new byte[0]);
+            }
+            return revision;
+        }
+
+        /**
+         * Return the pending version of a snapshot as a conflict with the server's. Must be called with lock held.
+         */
+        SnapshotsClient.DataOrConflict<Snapshot> conflict(String name, Revision serverRevision, Revision mine) {
+            String conflictId = id + "-conflict-" + nextConflictId++;
+            conflicts.put(conflictId, new OpenConflict(this, name, serverRevision.number));
+            conflictsReturned.incrementAndGet();
+            SnapshotsClient.SnapshotConflict conflict = new SnapshotsClient.SnapshotConflict(conflictId,
+                    new OpenSnapshot(serverRevision), new OpenSnapshot(mine), new Contents(serverRevision.data));
+            return new SnapshotsClient.DataOrConflict<>(null, conflict);
+        }
+    }
+
+    /**
+     * The SnapshotsClient one device sees
+     */
+    private final class DeviceClient extends SnapshotsClient {
+        private final Device device;
+
+        DeviceClient(Device device) {
+            this.device = device;
+        }
+
+        @Override
+        public Task<DataOrConflict<Snapshot>> open(String fileName, boolean createIfNotFound) {
+            return open(fileName, createIfNotFound, RESOLUTION_POLICY_MANUAL);
+        }
+
+        @Override
+        public Task<DataOrConflict<Snapshot>> open(final String fileName, final boolean createIfNotFound,
+                                                   final int conflictPolicy) {
+            synchronized (lock) {
+                opens.incrementAndGet();
+                return respond(() -> {
+                    Revision serverRevision = device.current(fileName, createIfNotFound);
+                    Revision mine = device.pending.get(fileName);
+                    if (mine == null) {
+                        return new DataOrConflict<Snapshot>(new OpenSnapshot(serverRevision), null);
+                    }
+                    if (conflictPolicy == RESOLUTION_POLICY_MANUAL) {
+                        return device.conflict(fileName, serverRevision, mine);
+                    }
+                    // Automatic policies: simulated as most recently modified
+                    device.pending.remove(fileName);
+                    if (mine.modified >= serverRevision.modified) {
+                        serverRevision = store(fileName, mine.data, mine.progressValue);
+                    }
+                    return new DataOrConflict<Snapshot>(new OpenSnapshot(serverRevision), null);
+                });
+            }
+        }
+
+        @Override
+        public Task<SnapshotMetadata> commitAndClose(final Snapshot snapshot, final SnapshotMetadataChange metadataChange) {
+            synchronized (lock) {
+                commits.incrementAndGet();
+                final OpenSnapshot open = (OpenSnapshot) snapshot;
+                final byte[] data = open.contents.written().clone();
+                return respond(() -> {
+                    bytesUp.addAndGet(data.length);
+                    String name = open.base.name;
+                    Revision serverRevision = server.get(name);
+                    long serverNumber = serverRevision != null ? serverRevision.number : 0;
+                    if (serverNumber != open.base.number) {
+                        // Written from an old revision: held until this device's next open
+                        Revision mine = new Revision(name, open.base.snapshotId, open.base.number,
+                                System.currentTimeMillis(), progressOf(metadataChange), data);
+                        device.pending.put(name, mine);
+                        return mine;
+                    }
+                    return store(name, data, progressOf(metadataChange));
+                });
+            }
+        }
+
+        @Override
+        public Task<Void> discardAndClose(Snapshot snapshot) {
+            // Local only: nothing reaches the server
+            TaskCompletionSource<Void> source = new TaskCompletionSource<>();
+            source.setResult(null);
+            return source.getTask();
+        }
+
+        @Override
+        public Task<AnnotatedData<SnapshotMetadataBuffer>> load(boolean forceReload) {
+            synchronized (lock) {
+                metadataLoads.incrementAndGet();
+                return respond(() -> new AnnotatedData<>(
+                        new SnapshotMetadataBuffer(new ArrayList<SnapshotMetadata>(server.values())), false));
+            }
+        }
+
+        @Override
+        public Task<DataOrConflict<Snapshot>> resolveConflict(String conflictId, Snapshot snapshot) {
+            OpenSnapshot chosen = (OpenSnapshot) snapshot;
+            Contents contents = new Contents(chosen.contents.written());
+            return resolveConflict(conflictId, chosen.base.snapshotId, null, contents);
+        }
+
+        @Override
+        public Task<DataOrConflict<Snapshot>> resolveConflict(final String conflictId, String snapshotId,
+                                                              final SnapshotMetadataChange metadataChange,
+                                                              final SnapshotContents snapshotContents) {
+            synchronized (lock) {
+                resolves.incrementAndGet();
+                final byte[] data = ((Contents) snapshotContents).written().clone();
+                return respond(() -> {
+                    OpenConflict conflict = conflicts.remove(conflictId);
+                    if (conflict == null || conflict.device != device) {
+                        throw new IOException("Unknown conflict: " + conflictId);
+                    }
+                    bytesUp.addAndGet(data.length);
+                    Revision serverRevision = device.current(conflict.name, true);
+                    if (serverRevision.number != conflict.serverRevision) {
+                        // Another device committed in between: the resolution conflicts in turn
+                        Revision mine = new Revision(conflict.name, serverRevision.snapshotId,
+                                conflict.serverRevision, System.currentTimeMillis(), progressOf(metadataChange), data);
+                        device.pending.put(conflict.name, mine);
+                        return device.conflict(conflict.name, serverRevision, mine);
+                    }
+                    device.pending.remove(conflict.name);
+                    Revision resolved = store(conflict.name, data, progressOf(metadataChange));
+                    return new DataOrConflict<Snapshot>(new OpenSnapshot(resolved), null);
+                });
+            }
+        }
+    }
+}
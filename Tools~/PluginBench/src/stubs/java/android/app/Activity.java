@@ -0,0 +1,9 @@
+package android.app;
+
+import android.content.Context;
+
+/**
+ * Stand-in for android.app.Activity; only its Context role is used by the plugins
+ */
+public abstract class Activity extends Context {
+}
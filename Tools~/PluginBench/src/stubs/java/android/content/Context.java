@@ -0,0 +1,27 @@
+package android.content;
+
+import android.content.pm.ApplicationInfo;
+import android.content.res.AssetManager;
+
+import java.io.File;
+
+/**
+ * Stand-in for android.content.Context with the calls the plugins make
+ */
+public abstract class Context {
+    public static final int MODE_PRIVATE = 0;
+    public static final String VIBRATOR_SERVICE = "vibrator";
+    public static final String VIBRATOR_MANAGER_SERVICE = "vibrator_manager";
+
+    public abstract SharedPreferences getSharedPreferences(String name, int mode);
+
+    public abstract String getPackageName();
+
+    public abstract File getFilesDir();
+
+    public abstract Object getSystemService(String name);
+
+    public abstract AssetManager getAssets();
+
+    public abstract ApplicationInfo getApplicationInfo();
+}
@@ -0,0 +1,8 @@
+package android.content.pm;
+
+/**
+ * Stand-in for android.content.pm.ApplicationInfo
+ */
+public class ApplicationInfo {
+    public String sourceDir;
+}
@@ -0,0 +1,20 @@
+package android.content.res;
+
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.IOException;
+
+/**
+ * Stand-in for android.content.res.AssetFileDescriptor
+ */
+public abstract class AssetFileDescriptor implements Closeable {
+    public abstract FileDescriptor getFileDescriptor();
+
+    public abstract long getStartOffset();
+
+    public abstract long getDeclaredLength();
+
+    @Override
+    public void close() throws IOException {
+    }
+}
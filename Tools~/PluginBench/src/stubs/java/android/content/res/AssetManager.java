@@ -0,0 +1,13 @@
+package android.content.res;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Stand-in for android.content.res.AssetManager
+ */
+public abstract class AssetManager {
+    public abstract AssetFileDescriptor openFd(String fileName) throws IOException;
+
+    public abstract InputStream open(String fileName) throws IOException;
+}
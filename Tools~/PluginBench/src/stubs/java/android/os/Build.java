@@ -0,0 +1,16 @@
+package android.os;
+
+/**
+ * Stand-in for android.os.Build. SDK_INT is read from -Dstubs.sdk (default 33) so the
+ * pre-O and pre-S branches can be exercised too.
+ */
+public class Build {
+    public static class VERSION {
+        public static final int SDK_INT = Integer.getInteger("stubs.sdk", 33);
+    }
+
+    public static class VERSION_CODES {
+        public static final int O = 26;
+        public static final int S = 31;
+    }
+}
@@ -0,0 +1,70 @@
+package android.os;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stand-in for android.os.Handler that posts to its Looper's thread
+ */
+public class Handler {
+    private final Looper looper;
+    private final HashMap<Object, ArrayList<ScheduledFuture<?>>> tokens = new HashMap<>();
+
+    public Handler() {
+        this(Looper.getMainLooper());
+    }
+
+    public Handler(Looper looper) {
+        this.looper = looper;
+    }
+
+    public boolean post(Runnable runnable) {
+        return postDelayed(runnable, 0);
+    }
+
+    public boolean postDelayed(Runnable runnable, long delayMillis) {
+        return schedule(runnable, null, delayMillis);
+    }
+
+    public boolean postAtTime(Runnable runnable, Object token, long uptimeMillis) {
+        return schedule(runnable, token, uptimeMillis - SystemClock.uptimeMillis());
+    }
+
+    public void removeCallbacksAndMessages(Object token) {
+        synchronized (tokens) {
+            ArrayList<ScheduledFuture<?>> futures = token != null ? tokens.remove(token) : null;
+            if (token == null) {
+                futures = new ArrayList<>();
+                for (ArrayList<ScheduledFuture<?>> list : tokens.values()) {
+                    futures.addAll(list);
+                }
+                tokens.clear();
+            }
+            if (futures != null) {
+                for (ScheduledFuture<?> future : futures) {
+                    future.cancel(false);
+                }
+            }
+        }
+    }
+
+    private boolean schedule(Runnable runnable, Object token, long delayMillis) {
+        if (looper.queue.isShutdown()) {
+            return false;
+        }
+        ScheduledFuture<?> future = looper.queue.schedule(runnable, Math.max(0, delayMillis), TimeUnit.MILLISECONDS);
+        if (token != null) {
+            synchronized (tokens) {
+                ArrayList<ScheduledFuture<?>> futures = tokens.get(token);
+                if (futures == null) {
+                    futures = new ArrayList<>();
+                    tokens.put(token, futures);
+                }
+                futures.add(future);
+            }
+        }
+        return true;
+    }
+}
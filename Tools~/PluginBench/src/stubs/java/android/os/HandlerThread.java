@@ -0,0 +1,22 @@
+package android.os;
+
+/**
+ * Stand-in for android.os.HandlerThread. The Looper owns the thread that runs messages.
+ */
+public class HandlerThread extends Thread {
+    private final Looper looper;
+
+    public HandlerThread(String name, int priority) {
+        super(name);
+        looper = new Looper(name);
+    }
+
+    public Looper getLooper() {
+        return looper;
+    }
+
+    public boolean quitSafely() {
+        looper.quitSafely();
+        return true;
+    }
+}
@@ -0,0 +1,29 @@
+package android.os;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+/**
+ * Stand-in for android.os.Looper: one daemon thread that runs posted messages in order
+ */
+public final class Looper {
+    private static final Looper MAIN = new Looper("main");
+
+    final ScheduledThreadPoolExecutor queue;
+
+    Looper(final String name) {
+        queue = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        queue.setRemoveOnCancelPolicy(true);
+    }
+
+    public static Looper getMainLooper() {
+        return MAIN;
+    }
+
+    public void quitSafely() {
+        queue.shutdown();
+    }
+}
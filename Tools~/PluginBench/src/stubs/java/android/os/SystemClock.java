@@ -0,0 +1,17 @@
+package android.os;
+
+/**
+ * Stand-in for android.os.SystemClock on the JVM's monotonic clock
+ */
+public final class SystemClock {
+    private SystemClock() {
+    }
+
+    public static long uptimeMillis() {
+        return System.nanoTime() / 1000000;
+    }
+
+    public static long elapsedRealtime() {
+        return System.nanoTime() / 1000000;
+    }
+}
@@ -0,0 +1,26 @@
+package android.os;
+
+/**
+ * Stand-in for android.os.VibrationEffect that keeps the timings and amplitudes it was made from
+ */
+public class VibrationEffect {
+    public static final int DEFAULT_AMPLITUDE = -1;
+
+    public final long[] timings;
+    public final int[] amplitudes;
+    public final int repeat;
+
+    private VibrationEffect(long[] timings, int[] amplitudes, int repeat) {
+        this.timings = timings;
+        this.amplitudes = amplitudes;
+        this.repeat = repeat;
+    }
+
+    public static VibrationEffect createOneShot(long milliseconds, int amplitude) {
+        return new VibrationEffect(new long[] { milliseconds }, new int[] { amplitude }, -1);
+    }
+
+    public static VibrationEffect createWaveform(long[] timings, int[] amplitudes, int repeat) {
+        return new VibrationEffect(timings.clone(), amplitudes.clone(), repeat);
+    }
+}
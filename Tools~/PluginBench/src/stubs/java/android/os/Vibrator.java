@@ -0,0 +1,17 @@
+package android.os;
+
+/**
+ * Stand-in for android.os.Vibrator
+ */
+public abstract class Vibrator {
+    public abstract boolean hasVibrator();
+
+    public abstract boolean hasAmplitudeControl();
+
+    public abstract void vibrate(VibrationEffect effect);
+
+    @Deprecated
+    public abstract void vibrate(long milliseconds);
+
+    public abstract void cancel();
+}
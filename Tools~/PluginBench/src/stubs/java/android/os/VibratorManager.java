@@ -0,0 +1,8 @@
+package android.os;
+
+/**
+ * Stand-in for android.os.VibratorManager
+ */
+public abstract class VibratorManager {
+    public abstract Vibrator getDefaultVibrator();
+}
@@ -0,0 +1,35 @@
+package android.util;
+
+/**
+ * Stand-in for android.util.Log. Silent unless the JVM runs with -Dstubs.log=true,
+ * so benchmarks do not measure console output.
+ */
+public final class Log {
+    private static final boolean ENABLED = Boolean.getBoolean("stubs.log");
+
+    private Log() {
+    }
+
+    public static int d(String tag, String message) {
+        return print("D", tag, message);
+    }
+
+    public static int i(String tag, String message) {
+        return print("I", tag, message);
+    }
+
+    public static int w(String tag, String message) {
+        return print("W", tag, message);
+    }
+
+    public static int e(String tag, String message) {
+        return print("E", tag, message);
+    }
+
+    private static int print(String level, String tag, String message) {
+        if (ENABLED) {
+            System.err.println(level + "/" + tag + " [" + Thread.currentThread().getName() + "]: " + message);
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,9 @@
+package android.view;
+
+/**
+ * Stand-in for android.view.HapticFeedbackConstants
+ */
+public class HapticFeedbackConstants {
+    public static final int VIRTUAL_KEY = 1;
+    public static final int KEYBOARD_TAP = 3;
+}
@@ -0,0 +1,10 @@
+package android.view;
+
+/**
+ * Stand-in for android.view.View
+ */
+public class View {
+    public boolean performHapticFeedback(int feedbackConstant) {
+        return false;
+    }
+}
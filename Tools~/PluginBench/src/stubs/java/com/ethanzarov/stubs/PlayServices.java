@@ -0,0 +1,45 @@
+package com.ethanzarov.stubs;
+
+import android.content.Context;
+import com.google.android.gms.auth.api.signin.GoogleSignInAccount;
+import com.google.android.gms.games.SnapshotsClient;
+
+/**
+ * Stub-only control over the Play services entry points that are static in the real
+ * API. By default nobody is signed in, so EZCloud runs local-only.
+ */
+public final class PlayServices {
+    /**
+     * Supplies the signed-in account and snapshots client for a context
+     */
+    public interface Provider {
+        GoogleSignInAccount signedInAccount(Context context);
+
+        SnapshotsClient snapshotsClient(Context context, GoogleSignInAccount account);
+    }
+
+    private static final Provider SIGNED_OUT = new Provider() {
+        @Override
+        public GoogleSignInAccount signedInAccount(Context context) {
+            return null;
+        }
+
+        @Override
+        public SnapshotsClient snapshotsClient(Context context, GoogleSignInAccount account) {
+            throw new IllegalStateException("No snapshots client without a signed-in account");
+        }
+    };
+
+    private static volatile Provider provider = SIGNED_OUT;
+
+    private PlayServices() {
+    }
+
+    public static void setProvider(Provider newProvider) {
+        provider = newProvider != null ? newProvider : SIGNED_OUT;
+    }
+
+    public static Provider getProvider() {
+        return provider;
+    }
+}
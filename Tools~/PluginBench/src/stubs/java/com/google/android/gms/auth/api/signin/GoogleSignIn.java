@@ -0,0 +1,20 @@
+package com.google.android.gms.auth.api.signin;
+
+import android.content.Context;
+import com.ethanzarov.stubs.PlayServices;
+
+/**
+ * Stand-in for com.google.android.gms.auth.api.signin.GoogleSignIn, answered by PlayServices
+ */
+public final class GoogleSignIn {
+    private GoogleSignIn() {
+    }
+
+    public static GoogleSignInClient getClient(Context context, GoogleSignInOptions options) {
+        return new GoogleSignInClient(context);
+    }
+
+    public static GoogleSignInAccount getLastSignedInAccount(Context context) {
+        return PlayServices.getProvider().signedInAccount(context);
+    }
+}
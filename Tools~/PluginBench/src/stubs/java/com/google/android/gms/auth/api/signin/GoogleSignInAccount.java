@@ -0,0 +1,16 @@
+package com.google.android.gms.auth.api.signin;
+
+/**
+ * Stand-in for com.google.android.gms.auth.api.signin.GoogleSignInAccount
+ */
+public class GoogleSignInAccount {
+    private final String id;
+
+    public GoogleSignInAccount(String id) {
+        this.id = id;
+    }
+
+    public String getId() {
+        return id;
+    }
+}
@@ -0,0 +1,25 @@
+package com.google.android.gms.auth.api.signin;
+
+import android.content.Context;
+import com.ethanzarov.stubs.PlayServices;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+/**
+ * Stand-in for com.google.android.gms.auth.api.signin.GoogleSignInClient
+ */
+public class GoogleSignInClient {
+    private final Context context;
+
+    GoogleSignInClient(Context context) {
+        this.context = context;
+    }
+
+    public Task<GoogleSignInAccount> silentSignIn() {
+        GoogleSignInAccount account = PlayServices.getProvider().signedInAccount(context);
+        if (account == null) {
+            return Tasks.forException(new Exception("Sign-in required"));
+        }
+        return Tasks.forResult(account);
+    }
+}
@@ -0,0 +1,17 @@
+package com.google.android.gms.auth.api.signin;
+
+/**
+ * Stand-in for com.google.android.gms.auth.api.signin.GoogleSignInOptions
+ */
+public class GoogleSignInOptions {
+    public static final GoogleSignInOptions DEFAULT_GAMES_SIGN_IN = new GoogleSignInOptions();
+
+    public static class Builder {
+        public Builder(GoogleSignInOptions options) {
+        }
+
+        public GoogleSignInOptions build() {
+            return DEFAULT_GAMES_SIGN_IN;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.google.android.gms.games;
+
+/**
+ * Stand-in for com.google.android.gms.games.AnnotatedData
+ */
+public class AnnotatedData<T> {
+    private final T data;
+    private final boolean stale;
+
+    public AnnotatedData(T data, boolean stale) {
+        this.data = data;
+        this.stale = stale;
+    }
+
+    public T get() {
+        return data;
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+}
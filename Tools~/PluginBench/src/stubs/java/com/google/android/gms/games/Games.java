@@ -0,0 +1,17 @@
+package com.google.android.gms.games;
+
+import android.content.Context;
+import com.ethanzarov.stubs.PlayServices;
+import com.google.android.gms.auth.api.signin.GoogleSignInAccount;
+
+/**
+ * Stand-in for com.google.android.gms.games.Games, answered by PlayServices
+ */
+public final class Games {
+    private Games() {
+    }
+
+    public static SnapshotsClient getSnapshotsClient(Context context, GoogleSignInAccount account) {
+        return PlayServices.getProvider().snapshotsClient(context, account);
+    }
+}
@@ -0,0 +1,96 @@
+package com.google.android.gms.games;
+
+import com.google.android.gms.games.snapshot.Snapshot;
+import com.google.android.gms.games.snapshot.SnapshotContents;
+import com.google.android.gms.games.snapshot.SnapshotMetadata;
+import com.google.android.gms.games.snapshot.SnapshotMetadataBuffer;
+import com.google.android.gms.games.snapshot.SnapshotMetadataChange;
+import com.google.android.gms.tasks.Task;
+
+/**
+ * Stand-in for com.google.android.gms.games.SnapshotsClient. Abstract, so a test or
+ * simulator supplies the service behind it.
+ */
+public abstract class SnapshotsClient {
+    public static final int RESOLUTION_POLICY_MANUAL = -1;
+    public static final int RESOLUTION_POLICY_LONGEST_PLAYTIME = 1;
+    public static final int RESOLUTION_POLICY_LAST_KNOWN_GOOD = 2;
+    public static final int RESOLUTION_POLICY_MOST_RECENTLY_MODIFIED = 3;
+    public static final int RESOLUTION_POLICY_HIGHEST_PROGRESS = 4;
+
+    public abstract Task<DataOrConflict<Snapshot>> open(String fileName, boolean createIfNotFound);
+
+    public abstract Task<DataOrConflict<Snapshot>> open(String fileName, boolean createIfNotFound,
+                                                        int conflictPolicy);
+
+    public abstract Task<SnapshotMetadata> commitAndClose(Snapshot snapshot, SnapshotMetadataChange metadataChange);
+
+    public abstract Task<Void> discardAndClose(Snapshot snapshot);
+
+    public abstract Task<AnnotatedData<SnapshotMetadataBuffer>> load(boolean forceReload);
+
+    public abstract Task<DataOrConflict<Snapshot>> resolveConflict(String conflictId, Snapshot snapshot);
+
+    public abstract Task<DataOrConflict<Snapshot>> resolveConflict(String conflictId, String snapshotId,
+                                                                   SnapshotMetadataChange metadataChange,
+                                                                   SnapshotContents snapshotContents);
+
+    /**
+     * Either an opened snapshot or a conflict to resolve
+     */
+    public static class DataOrConflict<T> {
+        private final T data;
+        private final SnapshotConflict conflict;
+
+        public DataOrConflict(T data, SnapshotConflict conflict) {
+            this.data = data;
+            this.conflict = conflict;
+        }
+
+        public boolean isConflict() {
+            return conflict != null;
+        }
+
+        public T getData() {
+            return data;
+        }
+
+        public SnapshotConflict getConflict() {
+            return conflict;
+        }
+    }
+
+    /**
+     * The server's snapshot and this device's conflicting version of it
+     */
+    public static class SnapshotConflict {
+        private final String conflictId;
+        private final Snapshot snapshot;
+        private final Snapshot conflictingSnapshot;
+        private final SnapshotContents resolutionContents;
+
+        public SnapshotConflict(String conflictId, Snapshot snapshot, Snapshot conflictingSnapshot,
+                                SnapshotContents resolutionContents) {
+            this.conflictId = conflictId;
+            this.snapshot = snapshot;
+            this.conflictingSnapshot = conflictingSnapshot;
+            this.resolutionContents = resolutionContents;
+        }
+
+        public String getConflictId() {
+            return conflictId;
+        }
+
+        public Snapshot getSnapshot() {
+            return snapshot;
+        }
+
+        public Snapshot getConflictingSnapshot() {
+            return conflictingSnapshot;
+        }
+
+        public SnapshotContents getResolutionSnapshotContents() {
+            return resolutionContents;
+        }
+    }
+}
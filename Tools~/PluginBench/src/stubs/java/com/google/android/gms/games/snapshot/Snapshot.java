@@ -0,0 +1,10 @@
+package com.google.android.gms.games.snapshot;
+
+/**
+ * Stand-in for com.google.android.gms.games.snapshot.Snapshot
+ */
+public interface Snapshot {
+    SnapshotMetadata getMetadata();
+
+    SnapshotContents getSnapshotContents();
+}
@@ -0,0 +1,12 @@
+package com.google.android.gms.games.snapshot;
+
+import java.io.IOException;
+
+/**
+ * Stand-in for com.google.android.gms.games.snapshot.SnapshotContents
+ */
+public interface SnapshotContents {
+    byte[] readFully() throws IOException;
+
+    boolean writeBytes(byte[] content);
+}
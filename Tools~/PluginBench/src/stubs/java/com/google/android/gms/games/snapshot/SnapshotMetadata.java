@@ -0,0 +1,16 @@
+package com.google.android.gms.games.snapshot;
+
+/**
+ * Stand-in for com.google.android.gms.games.snapshot.SnapshotMetadata
+ */
+public interface SnapshotMetadata {
+    String getSnapshotId();
+
+    String getUniqueName();
+
+    String getDescription();
+
+    long getLastModifiedTimestamp();
+
+    long getProgressValue();
+}
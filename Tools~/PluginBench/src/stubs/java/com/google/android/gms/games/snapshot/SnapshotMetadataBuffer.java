@@ -0,0 +1,27 @@
+package com.google.android.gms.games.snapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stand-in for com.google.android.gms.games.snapshot.SnapshotMetadataBuffer
+ */
+public class SnapshotMetadataBuffer {
+    private final ArrayList<SnapshotMetadata> items;
+
+    public SnapshotMetadataBuffer(List<SnapshotMetadata> items) {
+        this.items = new ArrayList<>(items);
+    }
+
+    public int getCount() {
+        return items.size();
+    }
+
+    public SnapshotMetadata get(int position) {
+        return items.get(position);
+    }
+
+    public void release() {
+        items.clear();
+    }
+}
@@ -0,0 +1,41 @@
+package com.google.android.gms.games.snapshot;
+
+/**
+ * Stand-in for com.google.android.gms.games.snapshot.SnapshotMetadataChange
+ */
+public class SnapshotMetadataChange {
+    private final String description;
+    private final Long progressValue;
+
+    private SnapshotMetadataChange(String description, Long progressValue) {
+        this.description = description;
+        this.progressValue = progressValue;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Long getProgressValue() {
+        return progressValue;
+    }
+
+    public static class Builder {
+        private String description;
+        private Long progressValue;
+
+        public Builder setDescription(String description) {
+            this.description = description;
+            return this;
+        }
+
+        public Builder setProgressValue(long progressValue) {
+            this.progressValue = progressValue;
+            return this;
+        }
+
+        public SnapshotMetadataChange build() {
+            return new SnapshotMetadataChange(description, progressValue);
+        }
+    }
+}
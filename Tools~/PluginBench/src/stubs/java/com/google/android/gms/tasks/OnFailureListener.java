@@ -0,0 +1,8 @@
+package com.google.android.gms.tasks;
+
+/**
+ * Stand-in for com.google.android.gms.tasks.OnFailureListener
+ */
+public interface OnFailureListener {
+    void onFailure(Exception e);
+}
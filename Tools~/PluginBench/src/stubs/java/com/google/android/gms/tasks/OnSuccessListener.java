@@ -0,0 +1,8 @@
+package com.google.android.gms.tasks;
+
+/**
+ * Stand-in for com.google.android.gms.tasks.OnSuccessListener
+ */
+public interface OnSuccessListener<TResult> {
+    void onSuccess(TResult result);
+}
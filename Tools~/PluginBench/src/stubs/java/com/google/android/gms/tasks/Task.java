@@ -0,0 +1,26 @@
+package com.google.android.gms.tasks;
+
+import android.app.Activity;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Stand-in for com.google.android.gms.tasks.Task with the calls the plugins make
+ */
+public abstract class Task<TResult> {
+    public abstract boolean isComplete();
+
+    public abstract boolean isSuccessful();
+
+    public abstract TResult getResult();
+
+    public abstract Exception getException();
+
+    public abstract Task<TResult> addOnSuccessListener(Executor executor, OnSuccessListener<? super TResult> listener);
+
+    public abstract Task<TResult> addOnSuccessListener(Activity activity, OnSuccessListener<? super TResult> listener);
+
+    public abstract Task<TResult> addOnFailureListener(Executor executor, OnFailureListener listener);
+
+    public abstract Task<TResult> addOnFailureListener(Activity activity, OnFailureListener listener);
+}
@@ -0,0 +1,117 @@
+package com.google.android.gms.tasks;
+
+import android.app.Activity;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Stand-in for com.google.android.gms.tasks.TaskCompletionSource. Listeners run on their
+ * executor once the task completes, or right away if it already has.
+ */
+public class TaskCompletionSource<TResult> {
+    private final SourceTask task = new SourceTask();
+
+    public Task<TResult> getTask() {
+        return task;
+    }
+
+    public void setResult(TResult result) {
+        task.complete(result, null);
+    }
+
+    public void setException(Exception e) {
+        task.complete(null, e);
+    }
+
+    private final class SourceTask extends Task<TResult> {
+        private final ArrayList<Runnable> pending = new ArrayList<>();
+        private boolean complete = false;
+        private TResult result;
+        private Exception exception;
+
+        void complete(TResult newResult, Exception newException) {
+            ArrayList<Runnable> listeners;
+            synchronized (this) {
+                if (complete) {
+                    throw new IllegalStateException("Task is already complete");
+                }
+                complete = true;
+                result = newResult;
+                exception = newException;
+                listeners = new ArrayList<>(pending);
+                pending.clear();
+            }
+            for (Runnable listener : listeners) {
+                listener.run();
+            }
+        }
+
+        @Override
+        public synchronized boolean isComplete() {
+            return complete;
+        }
+
+        @Override
+        public synchronized boolean isSuccessful() {
+            return complete && exception == null;
+        }
+
+        @Override
+        public synchronized TResult getResult() {
+            if (!complete) {
+                throw new IllegalStateException("Task is not yet complete");
+            }
+            if (exception != null) {
+                throw new RuntimeException(exception);
+            }
+            return result;
+        }
+
+        @Override
+        public synchronized Exception getException() {
+            return exception;
+        }
+
+        @Override
+        public Task<TResult> addOnSuccessListener(final Executor executor,
+                                                  final OnSuccessListener<? super TResult> listener) {
+            whenComplete(() -> {
+                if (exception == null) {
+                    executor.execute(() -> listener.onSuccess(result));
+                }
+            });
+            return this;
+        }
+
+        @Override
+        public Task<TResult> addOnSuccessListener(Activity activity, OnSuccessListener<? super TResult> listener) {
+            return addOnSuccessListener(Runnable::run, listener);
+        }
+
+        @Override
+        public Task<TResult> addOnFailureListener(final Executor executor, final OnFailureListener listener) {
+            whenComplete(() -> {
+                if (exception != null) {
+                    executor.execute(() -> listener.onFailure(exception));
+                }
+            });
+            return this;
+        }
+
+        @Override
+        public Task<TResult> addOnFailureListener(Activity activity, OnFailureListener listener) {
+            return addOnFailureListener(Runnable::run, listener);
+        }
+
+        private void whenComplete(Runnable listener) {
+            synchronized (this) {
+                if (!complete) {
+                    pending.add(listener);
+                    return;
+                }
+            }
+            listener.run();
+        }
+    }
+}
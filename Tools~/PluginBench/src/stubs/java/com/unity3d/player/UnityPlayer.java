@@ -0,0 +1,9 @@
+package com.unity3d.player;
+
+/**
+ * Stand-in for com.unity3d.player.UnityPlayer. Messages are dropped.
+ */
+public class UnityPlayer {
+    public static void UnitySendMessage(String gameObject, String methodName, String message) {
+    }
+}
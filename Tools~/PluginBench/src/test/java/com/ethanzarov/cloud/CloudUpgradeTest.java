@@ -0,0 +1,103 @@
+package com.ethanzarov.cloud;
+
+import android.content.Context;
+import com.ethanzarov.fakes.FakeContext;
+import com.ethanzarov.fakes.SimulatedSnapshotService;
+import com.ethanzarov.stubs.PlayServices;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * A device upgrading from the baseline plugin, with local data but no dirty-key set or
+ * edit times, while another device has saved newer values to the cloud. The cloud
+ * values must win on the upgraded device and stay on the server after it syncs.
+ */
+public class CloudUpgradeTest {
+    private static final String SAVE_NAME = SyncSimulator.CLOUD_SAVE_NAME;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private SimulatedSnapshotService service;
+
+    @Before
+    public void setUp() {
+        service = new SimulatedSnapshotService(1, 1, 5);
+        PlayServices.setProvider(service.provider());
+    }
+
+    @After
+    public void tearDown() {
+        PlayServices.setProvider(null);
+    }
+
+    @Test
+    public void cloudWinsOverBaselineDataWhenAnotherBaselineDeviceSaved() throws Exception {
+        // The other device still runs the baseline plugin, which saved legacy JSON
+        service.put(SAVE_NAME, "{\"coins\":500,\"level\":7}".getBytes(StandardCharsets.UTF_8));
+
+        EZCloud upgraded = upgradedBaselineDevice();
+
+        assertCloudValuesKept(upgraded);
+    }
+
+    @Test
+    public void cloudWinsOverBaselineDataWhenAnUpgradedDeviceSavedLater() throws Exception {
+        EZCloud other = SyncSimulator.newDevice(service);
+        SyncSimulator.awaitIdle(service);
+        other.saveInt("coins", 500);
+        other.saveInt("level", 7);
+        other.flushToCloud();
+        SyncSimulator.awaitIdle(service);
+
+        EZCloud upgraded = upgradedBaselineDevice();
+
+        assertCloudValuesKept(upgraded);
+    }
+
+    /**
+     * A signed-in device whose prefs hold what the baseline plugin saved: older coins and
+     * level, and gems the cloud has never seen
+     */
+    private EZCloud upgradedBaselineDevice() throws Exception {
+        FakeContext context = new FakeContext("com.ethanzarov.sim", folder.newFolder());
+        String prefix = SyncSimulator.IDENTIFIER + ".";
+        context.getSharedPreferences("localData_" + SyncSimulator.IDENTIFIER, Context.MODE_PRIVATE).edit()
+                .putInt(prefix + "coins", 100)
+                .putInt(prefix + "level", 3)
+                .putInt(prefix + "gems", 9)
+                .apply();
+        service.addDevice(context);
+
+        EZCloud cloud = new EZCloud();
+        cloud.ctx = context;
+        cloud.setGameIdentifier(SyncSimulator.IDENTIFIER);
+        cloud.initialize();
+        SyncSimulator.awaitIdle(service);
+        return cloud;
+    }
+
+    private void assertCloudValuesKept(EZCloud upgraded) throws Exception {
+        upgraded.flushToCloud();
+        SyncSimulator.awaitIdle(service);
+
+        assertEquals(500, upgraded.loadInt("coins"));
+        assertEquals(7, upgraded.loadInt("level"));
+        assertEquals(9, upgraded.loadInt("gems"));
+        assertFalse(upgraded.hasUnsyncedChanges());
+
+        Map<String, Object> server = SyncSimulator.serverData(service);
+        assertEquals(500, server.get("coins"));
+        assertEquals(7, server.get("level"));
+        assertEquals(9, server.get("gems"));
+    }
+}
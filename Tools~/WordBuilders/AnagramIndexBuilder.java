@@ -0,0 +1,154 @@
+package com.ethanzarov.words;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Build-time tool that compiles the word lists into the AnagramIndex file format.
+ *
+ *   java com.ethanzarov.words.AnagramIndexBuilder out.bin COMPLETE.txt [EASY.txt MEDIUM.txt HARD.txt]
+ *
+ * Run it through build-word-assets.sh, which compiles it with AnagramIndex
+ * from the Android plugin folder.
+ *
+ * The lists are read by WordList. Words are grouped by signature (their
+ * letters sorted), so every anagram of a rack is one signature lookup away.
+ */
+public final class AnagramIndexBuilder {
+    private final WordList list;
+
+    AnagramIndexBuilder(WordList list) {
+        this.list = list;
+    }
+
+    public static void main(String[] args) throws IOException {
+        WordList list = args.length > 0 ? WordList.fromArgs(args, 1) : null;
+        if (list == null) {
+            System.err.println("usage: AnagramIndexBuilder <output> " + WordList.USAGE_LISTS);
+            System.exit(1);
+        }
+
+        long startTime = System.nanoTime();
+        int signatures = new AnagramIndexBuilder(list).write(new File(args[0]));
+        System.out.println("Wrote " + list.words.size() + " words under " + signatures + " signatures to "
+                + args[0] + " in " + ((System.nanoTime() - startTime) / 1000000) + "ms");
+    }
+
+    /**
+     * Write the index and return its signature count
+     */
+    int write(File output) throws IOException {
+        int minLength = WordList.MIN_WORD_LENGTH;
+        int maxLength = WordList.MAX_WORD_LENGTH;
+        int lengths = maxLength - minLength + 1;
+
+        // Per length: signature -> words with those letters, both sorted
+        ArrayList<TreeMap<String, ArrayList<String>>> sections = new ArrayList<>();
+        for (int i = 0; i < lengths; i++) {
+            sections.add(new TreeMap<>());
+        }
+        for (String word : list.words.keySet()) {
+            TreeMap<String, ArrayList<String>> section = sections.get(word.length() - minLength);
+            String signature = AnagramIndex.signatureKey(word);
+            ArrayList<String> group = section.get(signature);
+            if (group == null) {
+                group = new ArrayList<>();
+                section.put(signature, group);
+            }
+            group.add(word);
+        }
+
+        int signatureCount = 0;
+        for (TreeMap<String, ArrayList<String>> section : sections) {
+            signatureCount += section.size();
+        }
+
+        // Section offsets: all signature sections, then all word sections, then the hash table
+        int[] signatureOffsets = new int[lengths];
+        int[] wordOffsets = new int[lengths];
+        int offset = AnagramIndex.HEADER_SIZE + lengths * AnagramIndex.SECTION_ENTRY_SIZE;
+        for (int i = 0; i < lengths; i++) {
+            signatureOffsets[i] = offset;
+            offset += sections.get(i).size() * (minLength + i + AnagramIndex.SIGNATURE_EXTRA);
+        }
+        for (int i = 0; i < lengths; i++) {
+            wordOffsets[i] = offset;
+            offset += wordCount(sections.get(i)) * (minLength + i + 1);
+        }
+        int hashOffset = offset;
+        int hashSize = Integer.highestOneBit(Math.max(1, signatureCount)) * 4;
+
+        // Open addressing, linear probing; each slot holds a signature record offset (0 = empty)
+        int[] table = new int[hashSize];
+        for (int i = 0; i < lengths; i++) {
+            int recordOffset = signatureOffsets[i];
+            for (String signature : sections.get(i).keySet()) {
+                int slot = AnagramIndex.hash(signature) & (hashSize - 1);
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & (hashSize - 1);
+                }
+                table[slot] = recordOffset;
+                recordOffset += signature.length() + AnagramIndex.SIGNATURE_EXTRA;
+            }
+        }
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(output)));
+        try {
+            out.writeInt(AnagramIndex.MAGIC);
+            out.writeInt(AnagramIndex.FORMAT_VERSION);
+            out.writeInt(list.words.size());
+            out.writeInt(signatureCount);
+            out.writeInt(minLength);
+            out.writeInt(maxLength);
+            out.writeInt(hashOffset);
+            out.writeInt(hashSize);
+
+            for (int i = 0; i < lengths; i++) {
+                out.writeInt(signatureOffsets[i]);
+                out.writeInt(sections.get(i).size());
+                out.writeInt(wordOffsets[i]);
+                out.writeInt(wordCount(sections.get(i)));
+            }
+
+            for (int i = 0; i < lengths; i++) {
+                int wordOffset = wordOffsets[i];
+                for (Map.Entry<String, ArrayList<String>> entry : sections.get(i).entrySet()) {
+                    out.writeBytes(entry.getKey());
+                    out.writeInt(wordOffset);
+                    out.writeInt(entry.getValue().size());
+                    wordOffset += entry.getValue().size() * (minLength + i + 1);
+                }
+            }
+
+            for (int i = 0; i < lengths; i++) {
+                for (ArrayList<String> group : sections.get(i).values()) {
+                    for (String word : group) {
+                        out.writeBytes(word);
+                        out.writeByte(list.words.get(word));
+                    }
+                }
+            }
+
+            for (int slot : table) {
+                out.writeInt(slot);
+            }
+        } finally {
+            out.close();
+        }
+        return signatureCount;
+    }
+
+    private static int wordCount(TreeMap<String, ArrayList<String>> section) {
+        int count = 0;
+        for (ArrayList<String> group : section.values()) {
+            count += group.size();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,190 @@
+package com.ethanzarov.words;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.TreeMap;
+
+/**
+ * Build-time tool that compiles the word lists into the WordGraph file format.
+ *
+ *   java com.ethanzarov.words.WordGraphBuilder out.bin COMPLETE.txt [EASY.txt MEDIUM.txt HARD.txt]
+ *
+ * Run it through build-word-assets.sh, which compiles it with WordGraph from
+ * the Android plugin folder. It lives outside the package so it is not built
+ * into the APK.
+ *
+ * The lists are read by WordList. The graph is built with incremental
+ * minimization of sorted input (Daciuk et al.), so suffixes shared by many
+ * words are stored once.
+ */
+public final class WordGraphBuilder {
+    // Equivalent nodes: same terminal flag and the same edges to the same registered nodes
+    private final HashMap<String, Node> register = new HashMap<>();
+    private final ArrayList<Node> registered = new ArrayList<>();
+    private final ArrayList<Node> unchecked = new ArrayList<>();
+    private final Node root = new Node();
+    private final TreeMap<String, Integer> words;
+    private String previousWord = "";
+
+    WordGraphBuilder(WordList list) {
+        words = list.words;
+    }
+
+    public static void main(String[] args) throws IOException {
+        WordList list = args.length > 0 ? WordList.fromArgs(args, 1) : null;
+        if (list == null) {
+            System.err.println("usage: WordGraphBuilder <output> " + WordList.USAGE_LISTS);
+            System.exit(1);
+        }
+
+        long startTime = System.nanoTime();
+        WordGraphBuilder builder = new WordGraphBuilder(list);
+        builder.write(new File(args[0]));
+        System.out.println("Wrote " + builder.words.size() + " words as " + builder.registered.size() + " nodes to "
+                + args[0] + " in " + ((System.nanoTime() - startTime) / 1000000) + "ms");
+    }
+
+    public void write(File output) throws IOException {
+        build();
+
+        int edgeCount = 0;
+        for (Node node : registered) {
+            edgeCount += node.edgeCount;
+        }
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(output)));
+        try {
+            out.writeInt(WordGraph.MAGIC);
+            out.writeInt(WordGraph.FORMAT_VERSION);
+            out.writeInt(registered.size());
+            out.writeInt(edgeCount);
+            out.writeInt(words.size());
+            out.writeInt(root.id);
+            out.writeInt(WordList.MAX_WORD_LENGTH);
+            out.writeInt(0);
+
+            int firstEdge = 0;
+            for (Node node : registered) {
+                out.writeInt(firstEdge);
+                out.writeInt(node.edgeCount | (node.terminal ? WordGraph.TERMINAL_FLAG : 0));
+                out.writeInt(node.wordCount);
+                firstEdge += node.edgeCount;
+            }
+            for (Node node : registered) {
+                for (int e = 0; e < node.edgeCount; e++) {
+                    out.writeInt((node.labels[e] << WordGraph.LETTER_SHIFT) | node.targets[e].id);
+                }
+            }
+
+            // Two bits per word, in word index (alphabetical) order
+            int packed = 0;
+            int index = 0;
+            for (int difficulty : words.values()) {
+                packed |= difficulty << ((index & 3) * 2);
+                if ((index & 3) == 3) {
+                    out.writeByte(packed);
+                    packed = 0;
+                }
+                index++;
+            }
+            if ((index & 3) != 0) {
+                out.writeByte(packed);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private void build() {
+        if (!registered.isEmpty()) {
+            return;
+        }
+        for (String word : words.keySet()) {
+            insert(word);
+        }
+        minimize(0);
+        registerNode(root);
+    }
+
+    private void insert(String word) {
+        int common = 0;
+        int limit = Math.min(word.length(), previousWord.length());
+        while (common < limit && word.charAt(common) == previousWord.charAt(common)) {
+            common++;
+        }
+        minimize(common);
+
+        Node node = unchecked.isEmpty() ? root : unchecked.get(unchecked.size() - 1);
+        for (int i = common; i < word.length(); i++) {
+            Node next = new Node();
+            node.addEdge(word.charAt(i) - 'A', next);
+            unchecked.add(next);
+            node = next;
+        }
+        node.terminal = true;
+        previousWord = word;
+    }
+
+    /**
+     * Replace or register the unchecked nodes deeper than depth, deepest first
+     */
+    private void minimize(int depth) {
+        for (int i = unchecked.size() - 1; i >= depth; i--) {
+            Node child = unchecked.remove(i);
+            Node parent = i == 0 ? root : unchecked.get(i - 1);
+            Node existing = register.get(child.signature());
+            if (existing != null) {
+                parent.targets[parent.edgeCount - 1] = existing;
+            } else {
+                registerNode(child);
+            }
+        }
+    }
+
+    private void registerNode(Node node) {
+        node.id = registered.size();
+        node.wordCount = node.terminal ? 1 : 0;
+        for (int e = 0; e < node.edgeCount; e++) {
+            node.wordCount += node.targets[e].wordCount;
+        }
+        registered.add(node);
+        register.put(node.signature(), node);
+    }
+
+    private static final class Node {
+        int id = -1;
+        boolean terminal;
+        int wordCount;
+        int edgeCount;
+        int[] labels = new int[2];
+        Node[] targets = new Node[2];
+
+        // Edges arrive in letter order because the input is sorted
+        void addEdge(int letter, Node target) {
+            if (edgeCount == labels.length) {
+                int[] newLabels = new int[edgeCount * 2];
+                Node[] newTargets = new Node[edgeCount * 2];
+                System.arraycopy(labels, 0, newLabels, 0, edgeCount);
+                System.arraycopy(targets, 0, newTargets, 0, edgeCount);
+                labels = newLabels;
+                targets = newTargets;
+            }
+            labels[edgeCount] = letter;
+            targets[edgeCount] = target;
+            edgeCount++;
+        }
+
+        String signature() {
+            StringBuilder key = new StringBuilder(terminal ? "1" : "0");
+            for (int e = 0; e < edgeCount; e++) {
+                key.append(',').append(labels[e]).append(':').append(targets[e].id);
+            }
+            return key.toString();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.ethanzarov.words;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.TreeMap;
+
+/**
+ * Words and difficulties read from the text word lists for the build-time
+ * tools. Words are read the way WordDictionary reads them: one per line,
+ * carriage returns stripped, upper-cased, lengths 3..24. Every word in the
+ * complete list is hard unless a difficulty list says otherwise; later lists
+ * override earlier ones, as in WordDictionary.InitializeDictionary.
+ */
+final class WordList {
+    static final int MIN_WORD_LENGTH = 3;
+    static final int MAX_WORD_LENGTH = 24;
+
+    static final String USAGE_LISTS = "<complete.txt> [<easy.txt> <medium.txt> <hard.txt>]";
+
+    // Alphabetical, which is also the order of word numbers in WordGraph
+    final TreeMap<String, Integer> words = new TreeMap<>();
+
+    /**
+     * Read the lists named by args[first..]: the complete list, optionally followed by easy, medium and hard.
+     * Returns null if the argument count does not fit.
+     */
+    static WordList fromArgs(String[] args, int first) throws IOException {
+        int count = args.length - first;
+        if (count != 1 && count != 4) {
+            return null;
+        }
+        WordList list = new WordList();
+        list.addWords(new File(args[first]), WordGraph.DIFFICULTY_HARD);
+        if (count == 4) {
+            list.addWords(new File(args[first + 1]), WordGraph.DIFFICULTY_EASY);
+            list.addWords(new File(args[first + 2]), WordGraph.DIFFICULTY_MEDIUM);
+            list.addWords(new File(args[first + 3]), WordGraph.DIFFICULTY_HARD);
+        }
+        return list;
+    }
+
+    /**
+     * Add every valid word in a list with this difficulty, replacing the difficulty of words already added
+     */
+    void addWords(File file, int difficulty) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                addWord(line, difficulty);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    void addWord(String word, int difficulty) {
+        word = word.replace("\r", "").trim().toUpperCase();
+        if (word.length() < MIN_WORD_LENGTH || word.length() > MAX_WORD_LENGTH) {
+            return;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                return;
+            }
+        }
+        words.put(word, difficulty);
+    }
+}
@@ -0,0 +1,31 @@
+#!/bin/sh
+# Build the word asset files read by EZWords from the text word lists.
+# The builders run on the desktop JDK and are kept out of the Unity package
+# (folders ending in ~ are not imported), so they never ship in the APK.
+#
+#   build-word-assets.sh <output dir> COMPLETE.txt [EASY.txt MEDIUM.txt HARD.txt]
+#
+# Writes <output dir>/words.bin (WordGraph) and <output dir>/anagrams.bin
+# (AnagramIndex). Point the output dir at the game's Assets/StreamingAssets
+# and open them with EZWords.openAsset and EZWords.openAnagramAsset.
+set -e
+
+if [ $# -ne 2 ] && [ $# -ne 5 ]; then
+    echo "usage: build-word-assets.sh <output dir> COMPLETE.txt [EASY.txt MEDIUM.txt HARD.txt]" >&2
+    exit 1
+fi
+
+TOOLS_DIR=$(cd "$(dirname "$0")" && pwd)
+PLUGIN_DIR="$TOOLS_DIR/../../Runtime/Plugins/Android"
+OUTPUT_DIR=$1
+shift
+
+CLASSES=$(mktemp -d)
+trap 'rm -rf "$CLASSES"' EXIT
+javac -encoding UTF-8 -d "$CLASSES" \
+    "$PLUGIN_DIR/WordGraph.java" "$PLUGIN_DIR/AnagramIndex.java" \
+    "$TOOLS_DIR"/*.java
+
+mkdir -p "$OUTPUT_DIR"
+java -cp "$CLASSES" com.ethanzarov.words.WordGraphBuilder "$OUTPUT_DIR/words.bin" "$@"
+java -cp "$CLASSES" com.ethanzarov.words.AnagramIndexBuilder "$OUTPUT_DIR/anagrams.bin" "$@"